@@ -0,0 +1,21 @@
+#!/bin/sh
+# Builds jimp and the benchmarks and runs them. jimp is installed first and
+# the benchmarks are built against its current version, so they never run
+# against an outdated jimp.
+#
+# Usage: run.sh [--allocations] [JMH arguments]
+#   run.sh DispatchBenchmark -f 1
+#   run.sh --allocations CompileBenchmark
+# With --allocations the benchmarks run with the GC profiler through
+# AllocationRunner to report the allocations per operation.
+set -e
+cd "$(dirname "$0")"
+version=$(mvn -B -q -f ../pom.xml help:evaluate -Dexpression=project.version -DforceStdout)
+mvn -B -q -f ../pom.xml install -DskipTests
+mvn -B -q package -Djimp.version="$version"
+if [ "$1" = "--allocations" ]; then
+	shift
+	exec java -cp target/benchmarks.jar de.xzise.jimp.benchmarks.AllocationRunner "$@"
+else
+	exec java -jar target/benchmarks.jar "$@"
+fi
@@ -0,0 +1,43 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which reports the allocation rate
+ * and the allocated bytes per operation next to the time. All arguments are
+ * passed to JMH, so for example a regular expression selects the benchmarks:
+ * <code>java -cp target/benchmarks.jar de.xzise.jimp.benchmarks.AllocationRunner Compile</code>
+ */
+public final class AllocationRunner {
+
+    private AllocationRunner() {
+    }
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final Options options = new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.MethodParser.Compiled;
+
+/**
+ * Measures how long {@link MethodParser#compile(String)} takes for a short
+ * line, a long line with many entries and a deeply nested line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompileBenchmark {
+
+    @Param({ "small", "large", "nested" })
+    public String input;
+
+    private String line;
+
+    public static String getLine(final String name) {
+        if ("small".equals(name)) {
+            return "Hello sp() ifequals(a,b,friend,stranger)";
+        } else if ("large".equals(name)) {
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                builder.append("word").append(i).append(" \"quoted text\" add(").append(i).append(",2) ");
+            }
+            return builder.toString();
+        } else {
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 50; i++) {
+                builder.append("call(a,");
+            }
+            builder.append("end");
+            for (int i = 0; i < 50; i++) {
+                builder.append(')');
+            }
+            return builder.toString();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.line = getLine(this.input);
+    }
+
+    @Benchmark
+    public Compiled compile() {
+        return MethodParser.compile(this.line);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.xzise.jimp.Method;
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Compares the method lookup of the parser with the lookup in nested hash
+ * maps, which was used before the dispatch tables. The lookups either hit a
+ * method registered for the exact parameter count or fall back to a method
+ * with a variable parameter count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    /** Name and parameter counts of the registered methods. */
+    private static final String[] NAMES = { "print", "ifequals", "max", "returnvar", "add", "random", "array", "sp" };
+    private static final int[][] REGISTERED = { { -1 }, { 3, 4 }, { -1, 1, 2 }, { -1 }, { -2 }, { -1, 0 }, { -1 }, { 0 } };
+    /** Lookups which are answered by a method registered for exactly that parameter count. */
+    private static final String[] EXACT_NAMES = { "ifequals", "ifequals", "max", "max", "random", "sp", "ifequals", "sp" };
+    private static final int[] EXACT_COUNTS = { 3, 4, 1, 2, 0, 0, 3, 0 };
+    /** Lookups which are only answered by a method with a variable parameter count. */
+    private static final String[] VARIADIC_NAMES = { "print", "max", "returnvar", "add", "random", "array", "print", "returnvar" };
+    private static final int[] VARIADIC_COUNTS = { 3, 5, 2, 2, 7, 3, 1, 4 };
+
+    private static final Method<Variables> METHOD = new Method<Variables>() {
+        @Override
+        public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+            return null;
+        }
+    };
+
+    @Param({ "exact", "variadic" })
+    public String arity;
+
+    private String[] names;
+    private int[] paramCounts;
+    private MethodParser<Variables> parser;
+    private Map<String, Map<Integer, Method<? super Variables>>> legacy;
+
+    @Setup
+    public void setup() {
+        if ("exact".equals(this.arity)) {
+            this.names = EXACT_NAMES;
+            this.paramCounts = EXACT_COUNTS;
+        } else {
+            this.names = VARIADIC_NAMES;
+            this.paramCounts = VARIADIC_COUNTS;
+        }
+        this.parser = new MethodParser<Variables>(Logger.getLogger("jimp-benchmarks"), "");
+        this.legacy = new HashMap<String, Map<Integer, Method<? super Variables>>>();
+        for (int i = 0; i < NAMES.length; i++) {
+            this.parser.registerMethod(NAMES[i], METHOD, REGISTERED[i]);
+            final Map<Integer, Method<? super Variables>> methods = new HashMap<Integer, Method<? super Variables>>();
+            for (int paramCount : REGISTERED[i]) {
+                methods.put(paramCount, METHOD);
+            }
+            this.legacy.put(NAMES[i], methods);
+        }
+    }
+
+    private static Method<? super Variables> legacyGet(final Map<Integer, Method<? super Variables>> methods, int paramCount) {
+        if (methods.containsKey(paramCount)) {
+            return methods.get(paramCount);
+        } else {
+            Method<? super Variables> method = null;
+            paramCount = -Math.abs(paramCount);
+            while (paramCount < 0 && method == null) {
+                method = methods.get(paramCount);
+                paramCount++;
+            }
+            return method;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void dispatchTable(final Blackhole blackhole) {
+        for (int i = 0; i < this.names.length; i++) {
+            blackhole.consume(this.parser.getMethod(this.names[i], this.paramCounts[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void nestedMaps(final Blackhole blackhole) {
+        for (int i = 0; i < this.names.length; i++) {
+            final Map<Integer, Method<? super Variables>> methods = this.legacy.get(this.names[i]);
+            blackhole.consume(methods == null ? null : legacyGet(methods, this.paramCounts[i]));
+        }
+    }
+}
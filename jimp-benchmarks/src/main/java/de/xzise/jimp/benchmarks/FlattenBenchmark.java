@@ -0,0 +1,101 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.methods.PrintMethod;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ArrayParameterType;
+import de.xzise.jimp.parameter.types.LongParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Measures the flattening of nested arrays by the recursive print method and
+ * the conversion of an array into a string.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlattenBenchmark {
+
+    /** The number of elements of each array. */
+    @Param({ "4", "64" })
+    public int width;
+
+    /** The number of nested array levels. */
+    @Param({ "1", "3" })
+    public int depth;
+
+    private RuntimeOptions<Variables> runtime;
+    private PrintMethod<Variables> print;
+    private ArrayParameterType array;
+    private Parameter[] parameters;
+
+    private ArrayParameterType createArray(final int level) {
+        final ParameterType[] elements = new ParameterType[level == this.depth ? this.width : 2];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = level == this.depth ? new LongParameterType(i) : this.createArray(level + 1);
+        }
+        return new ArrayParameterType(elements);
+    }
+
+    @Setup
+    public void setup() {
+        final MethodParser<Variables> parser = new MethodParser<Variables>(Logger.getLogger("jimp-benchmarks"), "");
+        parser.loadDefaults();
+        this.runtime = new RuntimeOptions<Variables>(null, parser, parser.getLogger());
+        this.print = PrintMethod.create(true, "call", parser);
+        this.array = this.createArray(1);
+        this.parameters = new Parameter[] { new Parameter("", "", false) {
+            @Override
+            protected <V extends Variables> ParameterType getInnerValue(final RuntimeOptions<V> runtime) {
+                return FlattenBenchmark.this.array;
+            }
+        } };
+    }
+
+    @Benchmark
+    public ParameterType print() {
+        return this.print.call(this.parameters, this.runtime);
+    }
+
+    @Benchmark
+    public String asString() {
+        return this.array.asString();
+    }
+}
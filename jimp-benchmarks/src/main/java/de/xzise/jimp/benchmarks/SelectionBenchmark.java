@@ -0,0 +1,138 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.methods.math.MaximumMethod;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ArrayParameterType;
+import de.xzise.jimp.parameter.types.LongParameterType;
+import de.xzise.jimp.parameter.types.NativeParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Compares the heap selection of <code>nmax</code> with the insertion into a
+ * sorted buffer, which was used before. The values are either separate
+ * parameters or one array parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SelectionBenchmark {
+
+    @Param({ "16", "1024", "16384" })
+    public int size;
+
+    @Param({ "1", "10", "100" })
+    public int count;
+
+    private RuntimeOptions<Variables> runtime;
+    private MaximumMethod method;
+    private Parameter[] parameters;
+    private Parameter[] arrayParameters;
+
+    @Setup
+    public void setup() {
+        final MethodParser<Variables> parser = new MethodParser<Variables>(Logger.getLogger("jimp-benchmarks"), "");
+        this.runtime = new RuntimeOptions<Variables>(null, parser, parser.getLogger());
+        this.method = new MaximumMethod(false);
+        final Random random = new Random(42);
+        final String countText = Integer.toString(this.count);
+        this.parameters = new Parameter[this.size + 1];
+        this.parameters[0] = new Parameter(countText, countText, false);
+        final ParameterType[] values = new ParameterType[this.size];
+        for (int i = 0; i < this.size; i++) {
+            final String value = Integer.toString(random.nextInt(1000000));
+            this.parameters[i + 1] = new Parameter(value, value, false);
+            values[i] = new LongParameterType(Long.parseLong(value));
+        }
+        final ParameterType array = new ArrayParameterType(values);
+        this.arrayParameters = new Parameter[] { this.parameters[0], new Parameter("", "", false) {
+            @Override
+            protected <V extends Variables> ParameterType getInnerValue(final RuntimeOptions<V> runtime) {
+                return array;
+            }
+        } };
+    }
+
+    /** The selection used before the heap, with a boxed list and an insertion sort. */
+    private static long insertionSelect(final Parameter[] parameters, final RuntimeOptions<Variables> runtime) {
+        final int intCount = NativeParameterType.asLong(parameters[0].getValue(runtime)).intValue();
+        final List<Long> longs = new ArrayList<Long>(parameters.length);
+        for (int i = 1; i < parameters.length; i++) {
+            final Long value = NativeParameterType.asLong(parameters[i].getValue(runtime));
+            if (value != null) {
+                longs.add(value);
+            }
+        }
+        final long[] highest = new long[intCount];
+        int filled = 0;
+        for (Long longBuffer : longs) {
+            int i;
+            for (i = 0; i < filled && highest[i] > longBuffer; i++) {
+            }
+            if (i < highest.length) {
+                for (int j = Math.min(filled, highest.length - 1); i < j; j--) {
+                    highest[j] = highest[j - 1];
+                }
+                highest[i] = longBuffer;
+                filled = Math.min(highest.length, filled + 1);
+            }
+        }
+        return highest[intCount - 1];
+    }
+
+    @Benchmark
+    public long insertion() {
+        return insertionSelect(this.parameters, this.runtime);
+    }
+
+    @Benchmark
+    public ParameterType heap() {
+        return this.method.call(this.parameters, this.runtime);
+    }
+
+    @Benchmark
+    public ParameterType heapArray() {
+        return this.method.call(this.arrayParameters, this.runtime);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.xzise.jimp.LinkedTemplate;
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Compares the interpreted execution of a compiled line with the execution of
+ * the same line linked to the parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateBackendBenchmark {
+
+    private static final Variables VARIABLES = new Variables() {
+    };
+
+    @Param({ "literal", "methods", "mixed", "variables" })
+    public String template;
+
+    private MethodParser<Variables> parser;
+    private Compiled compiled;
+    private LinkedTemplate<Variables> linked;
+
+    public static String getTemplate(final String name) {
+        if ("literal".equals(name)) {
+            return "Welcome on the server, have fun and respect the rules!";
+        } else if ("methods".equals(name)) {
+            return "ifequals(a,a,yes,no) max(3,9) array(a,b,c) print(x,y,z) random(a,b)";
+        } else if ("variables".equals(name)) {
+            return "returnvar(name,Steve) Hello returnvar(name) you have returnvar(points,add(1,2)) points and returnvar(points) in total";
+        } else {
+            return "Hello sp() ifequals(a,b,friend,stranger) you have add(1,2) points and random(one,two) messages";
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.parser = new MethodParser<Variables>(Logger.getLogger("jimp-benchmarks"), "");
+        this.parser.loadDefaults();
+        this.compiled = this.parser.optimize(MethodParser.compile(getTemplate(this.template)));
+        this.linked = this.parser.link(this.compiled);
+    }
+
+    @Benchmark
+    public String interpreted() {
+        return this.parser.execute(this.compiled, VARIABLES);
+    }
+
+    @Benchmark
+    public String linked() {
+        return this.linked.execute(VARIABLES);
+    }
+}
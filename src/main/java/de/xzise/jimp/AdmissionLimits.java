@@ -0,0 +1,108 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+/**
+ * The limits of the {@link TemplateCost cost} of lines admitted by
+ * {@link MethodParser#admit(String)}. Instances are immutable and could be
+ * shared.
+ */
+public final class AdmissionLimits {
+
+    /** Limits which admit all lines. */
+    public static final AdmissionLimits UNLIMITED = new AdmissionLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int maximumNodes;
+    private final int maximumDepth;
+    private final int maximumDynamicCalls;
+    private final int maximumFanOut;
+
+    /**
+     * Creates new limits.
+     * 
+     * @param maximumNodes
+     *            the maximum number of entries and parameters.
+     * @param maximumDepth
+     *            the maximum nesting depth of the calls.
+     * @param maximumDynamicCalls
+     *            the maximum number of calls of dynamic methods.
+     * @param maximumFanOut
+     *            the maximum number of parameters of variadic calls.
+     */
+    public AdmissionLimits(final int maximumNodes, final int maximumDepth, final int maximumDynamicCalls, final int maximumFanOut) {
+        if (maximumNodes < 0 || maximumDepth < 0 || maximumDynamicCalls < 0 || maximumFanOut < 0) {
+            throw new IllegalArgumentException("The limits mustn't be negative.");
+        }
+        this.maximumNodes = maximumNodes;
+        this.maximumDepth = maximumDepth;
+        this.maximumDynamicCalls = maximumDynamicCalls;
+        this.maximumFanOut = maximumFanOut;
+    }
+
+    public int getMaximumNodes() {
+        return this.maximumNodes;
+    }
+
+    public int getMaximumDepth() {
+        return this.maximumDepth;
+    }
+
+    public int getMaximumDynamicCalls() {
+        return this.maximumDynamicCalls;
+    }
+
+    public int getMaximumFanOut() {
+        return this.maximumFanOut;
+    }
+
+    /**
+     * Checks the cost of a line against the limits.
+     * 
+     * @param cost
+     *            the cost of the line.
+     * @throws TemplateRejectedException
+     *             if the cost exceeds one of the limits.
+     */
+    public void check(final TemplateCost cost) throws TemplateRejectedException {
+        if (cost.getNodeCount() > this.maximumNodes) {
+            throw new TemplateRejectedException(TemplateRejectedException.Limit.NODES, cost, this.maximumNodes);
+        } else if (cost.getMaximumDepth() > this.maximumDepth) {
+            throw new TemplateRejectedException(TemplateRejectedException.Limit.DEPTH, cost, this.maximumDepth);
+        } else if (cost.getDynamicCallCount() > this.maximumDynamicCalls) {
+            throw new TemplateRejectedException(TemplateRejectedException.Limit.DYNAMIC_CALLS, cost, this.maximumDynamicCalls);
+        } else if (cost.getMaximumFanOut() > this.maximumFanOut) {
+            throw new TemplateRejectedException(TemplateRejectedException.Limit.FAN_OUT, cost, this.maximumFanOut);
+        }
+    }
+
+    public AdmissionLimits withMaximumNodes(final int maximumNodes) {
+        return new AdmissionLimits(maximumNodes, this.maximumDepth, this.maximumDynamicCalls, this.maximumFanOut);
+    }
+
+    public AdmissionLimits withMaximumDepth(final int maximumDepth) {
+        return new AdmissionLimits(this.maximumNodes, maximumDepth, this.maximumDynamicCalls, this.maximumFanOut);
+    }
+
+    public AdmissionLimits withMaximumDynamicCalls(final int maximumDynamicCalls) {
+        return new AdmissionLimits(this.maximumNodes, this.maximumDepth, maximumDynamicCalls, this.maximumFanOut);
+    }
+
+    public AdmissionLimits withMaximumFanOut(final int maximumFanOut) {
+        return new AdmissionLimits(this.maximumNodes, this.maximumDepth, this.maximumDynamicCalls, maximumFanOut);
+    }
+}
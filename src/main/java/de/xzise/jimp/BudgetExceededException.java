@@ -0,0 +1,88 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+/**
+ * Thrown if an execution exceeded one of the limits of its
+ * {@link ExecutionBudget}.
+ */
+public class BudgetExceededException extends MethodException {
+
+    private static final long serialVersionUID = -2209512398337306516L;
+
+    public static enum Limit {
+        DEPTH("depth"),
+        CALLS("number of calls"),
+        OUTPUT("output length"),
+        TIME("time");
+
+        public final String name;
+
+        private Limit(final String name) {
+            this.name = name;
+        }
+    }
+
+    private final Limit limit;
+
+    public BudgetExceededException(final Limit limit, final long maximum) {
+        super("The execution exceeded the maximum " + limit.name + " of " + maximum + (limit == Limit.TIME ? " ns." : "."));
+        this.limit = limit;
+    }
+
+    public Limit getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Throws the carrier of an exceeded budget again if it caused the
+     * throwable. Methods which catch the exceptions of other code, like a
+     * script evaluating its parameters, have to call it, so the execution is
+     * still aborted.
+     * 
+     * @param throwable
+     *            the caught throwable.
+     */
+    public static void rethrowAbort(final Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause != null) {
+            if (cause instanceof Abort) {
+                throw (Abort) cause;
+            }
+            cause = cause.getCause();
+        }
+    }
+
+    /**
+     * Carries the exception through the methods, which can't throw checked
+     * exceptions. It is unwrapped where the execution started.
+     */
+    static final class Abort extends RuntimeException {
+
+        private static final long serialVersionUID = 4633097913366870519L;
+
+        public Abort(final BudgetExceededException cause) {
+            super(cause);
+        }
+
+        @Override
+        public BudgetExceededException getCause() {
+            return (BudgetExceededException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp;
+
+import java.util.logging.Logger;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.parameter.FoldedParameter;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterizedParameter;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Replaces calls of {@link PureMethod pure methods} which only get constant
+ * parameters with their result.
+ */
+final class ConstantFolder<V extends Variables> {
+
+    private final MethodParser<V> parser;
+    private final RuntimeOptions<V> runtime;
+    private final int version;
+
+    public ConstantFolder(final MethodParser<V> parser, final Logger logger) {
+        this.parser = parser;
+        this.version = parser.getRegistryVersion();
+        // Pure methods don't access the variables
+        this.runtime = new RuntimeOptions<V>(null, parser, logger);
+    }
+
+    public Compiled fold(final Compiled compiled) {
+        final Parameter[] entries = compiled.getEntries();
+        boolean changed = false;
+        for (int i = 0; i < entries.length; i++) {
+            final Parameter folded = this.fold(entries[i]);
+            if (folded != entries[i]) {
+                entries[i] = folded;
+                changed = true;
+            }
+        }
+        return changed ? new Compiled(entries) : compiled;
+    }
+
+    private Parameter fold(final Parameter parameter) {
+        if (parameter instanceof ParameterizedParameter) {
+            final ParameterizedParameter call = (ParameterizedParameter) parameter;
+            final Parameter[] parameters = new Parameter[call.getParameterCount()];
+            boolean changed = false;
+            boolean constant = true;
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = this.fold(call.getParameter(i));
+                changed |= parameters[i] != call.getParameter(i);
+                constant &= parameters[i].finalValue;
+            }
+            final ParameterizedParameter folded = changed ? call.withParameters(parameters) : call;
+            if (constant && this.parser.getMethod(folded.methodName, parameters.length) instanceof PureMethod) {
+                final ParameterType value;
+                try {
+                    value = folded.getValue(this.runtime);
+                } catch (RuntimeException e) {
+                    // Fails also at runtime, so keep it there
+                    return folded;
+                }
+                return new FoldedParameter(folded, value, this.parser, this.version);
+            } else {
+                return folded;
+            }
+        } else {
+            return parameter;
+        }
+    }
+}
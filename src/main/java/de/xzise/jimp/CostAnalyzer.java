@@ -0,0 +1,69 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterizedParameter;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Estimates the {@link TemplateCost cost} of a compiled line by walking the
+ * calls of the line and looking up the called methods. The line isn't
+ * executed.
+ */
+final class CostAnalyzer<V extends Variables> {
+
+    private final MethodParser<V> parser;
+    private int nodeCount;
+    private int callCount;
+    private int maximumDepth;
+    private int dynamicCallCount;
+    private int maximumFanOut;
+
+    public CostAnalyzer(final MethodParser<V> parser) {
+        this.parser = parser;
+    }
+
+    public TemplateCost analyze(final Compiled compiled) {
+        for (Parameter entry : compiled.getEntries()) {
+            this.analyze(entry, 1);
+        }
+        return new TemplateCost(this.nodeCount, this.callCount, this.maximumDepth, this.dynamicCallCount, this.maximumFanOut);
+    }
+
+    private void analyze(final Parameter parameter, final int depth) {
+        this.nodeCount++;
+        if (parameter instanceof ParameterizedParameter) {
+            final ParameterizedParameter call = (ParameterizedParameter) parameter;
+            final int paramCount = call.getParameterCount();
+            this.callCount++;
+            this.maximumDepth = Math.max(this.maximumDepth, depth);
+            final Method<? super V> method = this.parser.getMethod(call.methodName, paramCount);
+            if (method instanceof DynamicMethod && ((DynamicMethod) method).isDynamic()) {
+                this.dynamicCallCount++;
+            }
+            if (method != null && this.parser.isVariadic(call.methodName, paramCount)) {
+                this.maximumFanOut = Math.max(this.maximumFanOut, paramCount);
+            }
+            for (int i = 0; i < paramCount; i++) {
+                this.analyze(call.getParameter(i), depth + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+/**
+ * Marks a {@link Method} which calls may cost more than the line shows. It
+ * executes lines or scripts which are only known at runtime or selects the
+ * evaluated parameters at runtime, so the cost of a line calling it can't be
+ * estimated by {@link MethodParser#analyze(MethodParser.Compiled)}.
+ */
+public interface DynamicMethod {
+
+    /**
+     * Returns if the calls of this method are dynamic. This allows one class
+     * to be dynamic depending on its configuration.
+     * 
+     * @return if the calls of this method are dynamic.
+     */
+    boolean isDynamic();
+}
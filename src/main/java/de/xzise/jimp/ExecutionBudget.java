@@ -0,0 +1,112 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limits of one execution. An execution which exceeds one of the limits
+ * is aborted with a {@link BudgetExceededException}. The limits are the depth
+ * of nested method calls, the number of method calls, the number of
+ * characters the lines of the execution create and optionally the time the
+ * execution may take. Instances are immutable and could be shared.
+ */
+public final class ExecutionBudget {
+
+    /** Budget without any limits. */
+    public static final ExecutionBudget UNLIMITED = new ExecutionBudget(Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 0, TimeUnit.NANOSECONDS);
+    /** Budget which only limits the depth to {@link MethodParser#STOPPING_THRESHOLD}. */
+    public static final ExecutionBudget DEFAULT = UNLIMITED.withMaximumDepth(MethodParser.STOPPING_THRESHOLD);
+
+    private final int maximumDepth;
+    private final long maximumCalls;
+    private final long maximumOutput;
+    private final long timeoutNanos;
+
+    /**
+     * Creates a new budget.
+     * 
+     * @param maximumDepth
+     *            the maximum depth of nested method calls.
+     * @param maximumCalls
+     *            the maximum number of method calls.
+     * @param maximumOutput
+     *            the maximum number of characters created by the lines of the
+     *            execution, including the lines executed by methods.
+     * @param timeout
+     *            the maximum time of the execution. If it is zero the time
+     *            isn't limited.
+     * @param unit
+     *            the unit of the timeout.
+     */
+    public ExecutionBudget(final int maximumDepth, final long maximumCalls, final long maximumOutput, final long timeout, final TimeUnit unit) {
+        if (maximumDepth < 0 || maximumCalls < 0 || maximumOutput < 0 || timeout < 0) {
+            throw new IllegalArgumentException("The limits mustn't be negative.");
+        }
+        this.maximumDepth = maximumDepth;
+        this.maximumCalls = maximumCalls;
+        this.maximumOutput = maximumOutput;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public int getMaximumDepth() {
+        return this.maximumDepth;
+    }
+
+    /**
+     * Returns the depth at which a warning is logged, which is 90 percent of
+     * the maximum depth.
+     * 
+     * @return the depth at which a warning is logged.
+     */
+    public int getWarningDepth() {
+        return (int) (this.maximumDepth * 9L / 10);
+    }
+
+    public long getMaximumCalls() {
+        return this.maximumCalls;
+    }
+
+    public long getMaximumOutput() {
+        return this.maximumOutput;
+    }
+
+    public long getTimeout(final TimeUnit unit) {
+        return unit.convert(this.timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public boolean hasTimeout() {
+        return this.timeoutNanos > 0;
+    }
+
+    public ExecutionBudget withMaximumDepth(final int maximumDepth) {
+        return new ExecutionBudget(maximumDepth, this.maximumCalls, this.maximumOutput, this.timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public ExecutionBudget withMaximumCalls(final long maximumCalls) {
+        return new ExecutionBudget(this.maximumDepth, maximumCalls, this.maximumOutput, this.timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public ExecutionBudget withMaximumOutput(final long maximumOutput) {
+        return new ExecutionBudget(this.maximumDepth, this.maximumCalls, maximumOutput, this.timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public ExecutionBudget withTimeout(final long timeout, final TimeUnit unit) {
+        return new ExecutionBudget(this.maximumDepth, this.maximumCalls, this.maximumOutput, timeout, unit);
+    }
+}
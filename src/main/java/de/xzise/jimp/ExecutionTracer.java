@@ -0,0 +1,285 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.xzise.jimp.parameter.types.ParameterType;
+
+/**
+ * Records the tree of the method calls of sampled executions. Only every n-th
+ * execution is traced, the others are executed without any tracing. The trees
+ * of all traced executions are merged, so each node contains the calls of
+ * one method at one position in the tree. The tree could be written in the
+ * collapsed stack format, which is read by flame graph tools.
+ */
+public class ExecutionTracer {
+
+    /** The name of the root node of the call tree. */
+    public static final String ROOT_NAME = "execution";
+
+    private final long sampleInterval;
+    private final AtomicLong executions = new AtomicLong();
+    private final Node root = new Node(null, ROOT_NAME, 0, 0);
+
+    /** The calls of one method at one position of the call tree. */
+    public static final class Node {
+        private final Node parent;
+        private final String name;
+        private final int paramCount;
+        private final int depth;
+        private final List<Node> children = new ArrayList<Node>(2);
+        private long count;
+        private long totalNanos;
+        private long childNanos;
+        private long resultLength;
+
+        private Node(final Node parent, final String name, final int paramCount, final int depth) {
+            this.parent = parent;
+            this.name = name;
+            this.paramCount = paramCount;
+            this.depth = depth;
+        }
+
+        private Node getChild(final String name, final int paramCount, final int depth) {
+            for (Node child : this.children) {
+                if (child.paramCount == paramCount && child.name.equals(name)) {
+                    return child;
+                }
+            }
+            final Node child = new Node(this, name, paramCount, depth);
+            this.children.add(child);
+            return child;
+        }
+
+        private void merge(final Node node) {
+            this.count += node.count;
+            this.totalNanos += node.totalNanos;
+            this.childNanos += node.childNanos;
+            this.resultLength += node.resultLength;
+            for (Node child : node.children) {
+                this.getChild(child.name, child.paramCount, child.depth).merge(child);
+            }
+        }
+
+        private Node copy(final Node parent) {
+            final Node copy = new Node(parent, this.name, this.paramCount, this.depth);
+            copy.merge(this);
+            return copy;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public int getParamCount() {
+            return this.paramCount;
+        }
+
+        /**
+         * Returns the depth of the calls, which is the
+         * {@link RuntimeOptions#getDepth() depth} of the runtime options
+         * while the method is called. The root node has a depth of zero.
+         * 
+         * @return the depth of the calls.
+         */
+        public int getDepth() {
+            return this.depth;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getTotalTime(final TimeUnit unit) {
+            return unit.convert(this.totalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns the time spent in the method itself, without the time of
+         * the methods it called.
+         * 
+         * @param unit
+         *            the unit of the returned time.
+         * @return the time spent in the method itself.
+         */
+        public long getSelfTime(final TimeUnit unit) {
+            return unit.convert(Math.max(0, this.totalNanos - this.childNanos), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns the summed length of the text of all results. Null results
+         * have no length.
+         * 
+         * @return the summed length of the results.
+         */
+        public long getResultLength() {
+            return this.resultLength;
+        }
+
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(this.children);
+        }
+
+        private void writeCollapsed(final Appendable out, final StringBuilder stack, final TimeUnit unit) throws IOException {
+            final int length = stack.length();
+            if (length > 0) {
+                stack.append(';');
+            }
+            stack.append(this.name);
+            if (this.parent != null) {
+                stack.append('/').append(this.paramCount);
+            }
+            final long self = this.getSelfTime(unit);
+            if (self > 0) {
+                out.append(stack).append(' ').append(Long.toString(self)).append('\n');
+            }
+            for (Node child : this.children) {
+                child.writeCollapsed(out, stack, unit);
+            }
+            stack.setLength(length);
+        }
+    }
+
+    /**
+     * The call tree of one traced execution. It is only used by the thread of
+     * the execution and merged into the tracer when the execution finished.
+     */
+    public static final class Trace {
+        private final ExecutionTracer tracer;
+        private Node root;
+        private Node current;
+        private long start;
+
+        private Trace(final ExecutionTracer tracer) {
+            this.tracer = tracer;
+            this.reset();
+        }
+
+        private void reset() {
+            this.root = new Node(null, ROOT_NAME, 0, 0);
+            this.current = this.root;
+            this.start = System.nanoTime();
+        }
+
+        public void enter(final String name, final int paramCount, final int depth) {
+            this.current = this.current.getChild(name, paramCount, depth);
+        }
+
+        public void exit(final long nanos, final ParameterType result) {
+            final Node node = this.current;
+            node.count++;
+            node.totalNanos += nanos;
+            final String text = result == null ? null : result.asString();
+            if (text != null) {
+                node.resultLength += text.length();
+            }
+            this.current = node.parent;
+            this.current.childNanos += nanos;
+        }
+
+        /**
+         * Merges the calls recorded since the last finish into the tracer.
+         */
+        public void finish() {
+            if (this.current == this.root) {
+                this.root.count = 1;
+                this.root.totalNanos = System.nanoTime() - this.start;
+                this.tracer.merge(this.root);
+                this.reset();
+            }
+        }
+    }
+
+    /**
+     * Creates a new tracer.
+     * 
+     * @param sampleInterval
+     *            every n-th execution is traced. If it is one all executions
+     *            are traced.
+     */
+    public ExecutionTracer(final long sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("The sample interval has to be positive.");
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    public long getSampleInterval() {
+        return this.sampleInterval;
+    }
+
+    /**
+     * Decides if a new execution is traced.
+     * 
+     * @return the trace of the execution or null if it isn't traced.
+     */
+    public Trace sample() {
+        if (this.sampleInterval == 1 || this.executions.incrementAndGet() % this.sampleInterval == 0) {
+            return new Trace(this);
+        } else {
+            return null;
+        }
+    }
+
+    private synchronized void merge(final Node root) {
+        this.root.merge(root);
+    }
+
+    /**
+     * Returns a copy of the merged call tree of all traced executions.
+     * 
+     * @return the root of the call tree.
+     */
+    public synchronized Node getCallTree() {
+        return this.root.copy(null);
+    }
+
+    /**
+     * Writes the call tree in the collapsed stack format. Each line contains
+     * the names and parameter counts of the calls from the root, separated by
+     * semicolons, and the self time of the last call.
+     * 
+     * @param out
+     *            the output the lines are appended to.
+     * @param unit
+     *            the unit of the self times. Calls with a self time of less
+     *            than one unit are omitted.
+     * @throws IOException
+     *             if the output throws an exception.
+     */
+    public void writeCollapsed(final Appendable out, final TimeUnit unit) throws IOException {
+        this.getCallTree().writeCollapsed(out, new StringBuilder(), unit);
+    }
+
+    /**
+     * Removes all traced calls.
+     */
+    public synchronized void reset() {
+        this.root.children.clear();
+        this.root.count = 0;
+        this.root.totalNanos = 0;
+        this.root.childNanos = 0;
+        this.root.resultLength = 0;
+    }
+}
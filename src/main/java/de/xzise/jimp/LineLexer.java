@@ -0,0 +1,163 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterizedParameter;
+
+/**
+ * Splits a line into {@link Parameter} and {@link ParameterizedParameter}
+ * entries. The lexer works on the primitive characters of the line and only
+ * keeps one word buffer per line which is shared by all bracket levels, so the
+ * memory used is linear in the length of the line regardless of the nesting
+ * depth. Instances hold no parsing state and could be shared between threads.
+ */
+public final class LineLexer {
+
+    private final char[] paramDelimiter;
+    private final char[] delimiter;
+    private final char quote;
+    private final char escape;
+    private final Character bracketStart;
+    private final Character bracketEnd;
+    private final Character commentary;
+    private final boolean trimQuotes;
+
+    public LineLexer(final char[] paramDelimiter, final char[] delimiter, final char quote, final char escape, final Character bracketStart, final Character bracketEnd, final Character commentary, final boolean trimQuotes) {
+        if (delimiter.length == 0 || paramDelimiter.length == 0) {
+            throw new IllegalArgumentException("There has to be at least one delimiter.");
+        }
+        this.paramDelimiter = paramDelimiter.clone();
+        this.delimiter = delimiter.clone();
+        this.quote = quote;
+        this.escape = escape;
+        this.bracketStart = bracketStart;
+        this.bracketEnd = bracketEnd;
+        this.commentary = commentary;
+        this.trimQuotes = trimQuotes;
+    }
+
+    public Parameter[] parse(final String line) {
+        final List<Parameter> values = new ArrayList<Parameter>();
+        this.getParameters(values, line, line.toCharArray(), new char[line.length()], 0, this.delimiter);
+        return values.toArray(new Parameter[values.size()]);
+    }
+
+    private static boolean contains(final char[] chars, final char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean is(final Character special, final char c) {
+        return special != null && special.charValue() == c;
+    }
+
+    /**
+     * Reads the parameters starting at <code>start</code> until the end of the
+     * line or the closing bracket of this level.
+     * 
+     * @param parameters
+     *            the list the parameters of this level are added to.
+     * @param line
+     *            the complete line.
+     * @param chars
+     *            the characters of the complete line.
+     * @param word
+     *            the buffer for the current word. The word is always read
+     *            before a deeper level is parsed, so all levels share the same
+     *            buffer.
+     * @param start
+     *            the first index of this level.
+     * @param delimiter
+     *            the characters which separate the parameters on this level.
+     * @return the index of the closing bracket or the length of the line.
+     */
+    private int getParameters(final List<Parameter> parameters, final String line, final char[] chars, final char[] word, final int start, final char[] delimiter) {
+        boolean quoted = false;
+        boolean quotedEntry = false;
+        boolean escaped = false;
+        int quotedWordLength = -1;
+        int quotedLastStart = -1;
+        int filled = 0;
+        int entryStart = 0;
+        for (int i = start; i <= chars.length; i++) {
+            final char c;
+            if (i < chars.length) {
+                c = chars[i];
+            } else {
+                c = delimiter[0];
+            }
+            if (escaped) {
+                if (filled < word.length) {
+                    word[filled++] = c;
+                }
+                escaped = false;
+            } else if (c == this.quote) {
+                if (this.trimQuotes) {
+                    if (quoted) {
+                        quotedWordLength = filled;
+                    } else if (quotedLastStart < 0) {
+                        quotedLastStart = filled;
+                    }
+                }
+                quoted = !quoted;
+                if (quoted) {
+                    quotedEntry = true;
+                }
+            } else if (c == this.escape) {
+                escaped = true;
+            } else if (!quoted && (contains(delimiter, c) || is(this.bracketStart, c) || is(this.bracketEnd, c) || is(this.commentary, c))) {
+                if (filled > 0) {
+                    final int first = quotedLastStart < 0 ? 0 : quotedLastStart;
+                    final int last = quotedWordLength < 0 ? filled : (quotedWordLength - first);
+                    final String string = new String(word, first, last);
+                    if (is(this.bracketStart, c)) {
+                        final List<Parameter> subParameters = new ArrayList<Parameter>();
+                        i = this.getParameters(subParameters, line, chars, word, i + 1, this.paramDelimiter);
+                        final String full = line.substring(entryStart, i);
+                        parameters.add(new ParameterizedParameter(string, full, quotedEntry, subParameters.toArray(new Parameter[subParameters.size()])));
+                    } else {
+                        final String full = line.substring(entryStart, i);
+                        parameters.add(new Parameter(string, full, quotedEntry));
+                    }
+                    entryStart = i;
+                    filled = 0;
+                    quotedWordLength = -1;
+                    quotedEntry = false;
+                }
+                if (is(this.commentary, c)) {
+                    return chars.length;
+                } else if (is(this.bracketEnd, c)) {
+                    return i;
+                }
+                quotedLastStart = -1;
+            } else if (filled < word.length) {
+                word[filled++] = c;
+            }
+        }
+        return chars.length;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp;
+
+import java.io.IOException;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterizedParameter;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * A compiled line which is linked to one parser. All constant entries are
+ * converted into their text once, so executing it only evaluates the calls
+ * and appends the texts. The top level calls are copies of the calls of the
+ * compiled line, so their method is only bound to this parser, even if the
+ * compiled line is executed by other parsers. If the registry of the parser
+ * changes the constant entries are converted again.
+ */
+public final class LinkedTemplate<V extends Variables> {
+
+    private final MethodParser<V> parser;
+    private final Parameter[] entries;
+    private volatile Program<V> program;
+
+    private static final class Program<V extends Variables> implements Compiled.Texts<RuntimeOptions<V>> {
+        public final int version;
+        public final Parameter[] entries;
+        /** The text of constant entries, otherwise null. */
+        public final String[] texts;
+
+        public Program(final int version, final Parameter[] entries) {
+            this.version = version;
+            this.entries = entries;
+            this.texts = new String[entries.length];
+        }
+
+        @Override
+        public int getLength() {
+            return this.entries.length;
+        }
+
+        @Override
+        public String getText(final int index, final RuntimeOptions<V> runtime) {
+            final String text = this.texts[index];
+            if (text != null) {
+                return text;
+            } else {
+                return this.entries[index].getValue(runtime).asString();
+            }
+        }
+    }
+
+    public LinkedTemplate(final MethodParser<V> parser, final Compiled compiled) {
+        this.parser = parser;
+        this.entries = compiled.getEntries();
+        for (int i = 0; i < this.entries.length; i++) {
+            final Parameter entry = this.entries[i];
+            // Subclasses like the calls of alias templates keep their entry
+            if (entry.getClass() == ParameterizedParameter.class) {
+                final ParameterizedParameter call = (ParameterizedParameter) entry;
+                final Parameter[] arguments = new Parameter[call.getParameterCount()];
+                for (int j = 0; j < arguments.length; j++) {
+                    arguments[j] = call.getParameter(j);
+                }
+                this.entries[i] = call.withParameters(arguments);
+            }
+        }
+        this.program = this.link();
+    }
+
+    private Program<V> link() {
+        final Program<V> program = new Program<V>(this.parser.getRegistryVersion(), this.entries);
+        // Constant entries don't access the variables
+        final RuntimeOptions<V> runtime = new RuntimeOptions<V>(null, this.parser, this.parser.getLogger());
+        for (int i = 0; i < this.entries.length; i++) {
+            final Parameter entry = this.entries[i];
+            if (entry.finalValue) {
+                program.texts[i] = entry.getValue(runtime).asString();
+            }
+        }
+        return program;
+    }
+
+    private Program<V> getProgram() {
+        Program<V> program = this.program;
+        if (program.version != this.parser.getRegistryVersion()) {
+            program = this.link();
+            this.program = program;
+        }
+        return program;
+    }
+
+    /**
+     * Executes the line like {@link Compiled#execute(RuntimeOptions)}.
+     * 
+     * @param runtime
+     *            the runtime options. The parser of the runtime options has to
+     *            be the parser this line is linked to.
+     * @return the result of the line or an empty text if the budget was
+     *         exceeded.
+     */
+    public String execute(final RuntimeOptions<V> runtime) {
+        this.checkParser(runtime);
+        return Compiled.execute(this.getProgram(), runtime);
+    }
+
+    public String execute(final V globalParameters) {
+        return this.execute(this.createRuntime(globalParameters));
+    }
+
+    /**
+     * Executes the line like {@link Compiled#executeWithinBudget(RuntimeOptions)}.
+     * 
+     * @param runtime
+     *            the runtime options. The parser of the runtime options has to
+     *            be the parser this line is linked to.
+     * @return the result of the line.
+     * @throws BudgetExceededException
+     *             if the budget of the runtime options was exceeded.
+     */
+    public String executeWithinBudget(final RuntimeOptions<V> runtime) throws BudgetExceededException {
+        this.checkParser(runtime);
+        return Compiled.executeWithinBudget(this.getProgram(), runtime);
+    }
+
+    /**
+     * Executes the line like {@link Compiled#executeTo(Appendable, RuntimeOptions)}.
+     * 
+     * @param out
+     *            the output the result is appended to.
+     * @param runtime
+     *            the runtime options. The parser of the runtime options has to
+     *            be the parser this line is linked to.
+     * @throws IOException
+     *             if the output throws an exception.
+     * @throws BudgetExceededException
+     *             if the budget of the runtime options was exceeded.
+     */
+    public void executeTo(final Appendable out, final RuntimeOptions<V> runtime) throws IOException, BudgetExceededException {
+        this.checkParser(runtime);
+        Compiled.executeTo(this.getProgram(), out, runtime);
+    }
+
+    public void executeTo(final Appendable out, final V globalParameters) throws IOException, BudgetExceededException {
+        this.executeTo(out, this.createRuntime(globalParameters));
+    }
+
+    private RuntimeOptions<V> createRuntime(final V globalParameters) {
+        return new RuntimeOptions<V>(globalParameters, this.parser, this.parser.getLogger());
+    }
+
+    private void checkParser(final RuntimeOptions<V> runtime) {
+        if (runtime.parser != this.parser) {
+            throw new IllegalArgumentException("The line is linked to another parser.");
+        }
+    }
+}
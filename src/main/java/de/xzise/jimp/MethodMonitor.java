@@ -0,0 +1,55 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+import de.xzise.jimp.parameter.types.ParameterType;
+
+/**
+ * Observes the method calls of executions. The monitor of a parser is called
+ * by {@link RuntimeOptions#call(String, Method, de.xzise.jimp.parameter.Parameter[])}
+ * after each call of a method by its name, so it could be called by multiple
+ * threads at once and should return quickly.
+ */
+public interface MethodMonitor {
+
+    /**
+     * Monitor which ignores all calls. If it is used the calls aren't timed
+     * at all.
+     */
+    MethodMonitor NOOP = new MethodMonitor() {
+        @Override
+        public void called(final String name, final int paramCount, final long nanos, final ParameterType result) {
+        }
+    };
+
+    /**
+     * Called after a method returned or threw an exception.
+     * 
+     * @param name
+     *            the name the method was called by.
+     * @param paramCount
+     *            the number of parameters.
+     * @param nanos
+     *            the duration of the call in nanoseconds, including the calls
+     *            made by the method.
+     * @param result
+     *            the result of the method. It is null if the method failed or
+     *            threw an exception.
+     */
+    void called(String name, int paramCount, long nanos, ParameterType result);
+}
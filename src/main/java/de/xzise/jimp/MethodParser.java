@@ -18,14 +18,21 @@
 
 package de.xzise.jimp;
 
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import de.xzise.EqualCheck;
@@ -43,10 +50,14 @@ import de.xzise.jimp.methods.PrintPrefixMethod;
 import de.xzise.jimp.methods.RandomMethod;
 import de.xzise.jimp.methods.RedirectMethod;
 import de.xzise.jimp.methods.math.AddMethod;
+import de.xzise.jimp.methods.math.AverageMethod;
+import de.xzise.jimp.methods.math.CountMethod;
 import de.xzise.jimp.methods.math.MaximumMethod;
 import de.xzise.jimp.methods.math.MinimumMethod;
 import de.xzise.jimp.methods.math.RoundMethod;
+import de.xzise.jimp.methods.math.StandardDeviationMethod;
 import de.xzise.jimp.methods.math.SubtractMethod;
+import de.xzise.jimp.methods.math.SumMethod;
 import de.xzise.jimp.methods.var.IsVarPersistent;
 import de.xzise.jimp.methods.var.IsVarSet;
 import de.xzise.jimp.methods.var.ReturnVarMethod;
@@ -54,22 +65,24 @@ import de.xzise.jimp.methods.var.SetVarMethod;
 import de.xzise.jimp.methods.var.SetVarPersistency;
 import de.xzise.jimp.methods.var.UnsetVarMethod;
 import de.xzise.jimp.parameter.Parameter;
-import de.xzise.jimp.parameter.ParameterizedParameter;
 import de.xzise.jimp.parameter.types.BooleanParameterType;
 import de.xzise.jimp.parameter.types.DoubleParameterType;
 import de.xzise.jimp.parameter.types.LongParameterType;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.parameter.types.ParameterTypeFactory;
 import de.xzise.jimp.parameter.types.StringParameterType;
-import de.xzise.jimp.util.ArrayUtil;
-import de.xzise.jimp.util.FillingArray;
-import de.xzise.jimp.util.Util;
+import de.xzise.jimp.util.BoundedCache;
+import de.xzise.jimp.util.DecimalFormatter;
 import de.xzise.jimp.variables.Variables;
 
 public class MethodParser<V extends Variables> {
 
     public static final int STOPPING_THRESHOLD = 100;
     public static final int WARNING_THRESHOLD = STOPPING_THRESHOLD * 9 / 10;
+    public static final int DEFAULT_COMPILE_CACHE_SIZE = 256;
+    public static final int DEFAULT_DYNAMIC_CACHE_SIZE = 1024;
+
+    private static final LineLexer DEFAULT_LEXER = new LineLexer(new char[] { ',' }, new char[] { ' ' }, '"', '\\', '(', ')', null, true);
 
     private final static Map<String, ParameterTypeFactory> DEFAULT_FACTORIES = new HashMap<String, ParameterTypeFactory>(5);
 
@@ -81,47 +94,8 @@ public class MethodParser<V extends Variables> {
         DEFAULT_FACTORIES.put("array", ArrayMethod.INSTANCE);
     }
 
-    private static final class PersistableEntry<T> {
-        public boolean persistent;
-        public final T value;
-        
-        public PersistableEntry(final boolean persistent, final T value) {
-            this.persistent = persistent;
-            this.value = value;
-        }
-
-        public static <K, V> void clear(final Map<K, PersistableEntry<V>> map, final boolean persistentOnly) {
-            for (Entry<K, PersistableEntry<V>> entry : map.entrySet()) {
-                if (entry.getValue().persistent == persistentOnly) {
-                    map.remove(entry.getKey());
-                }
-            }
-        }
-    }
-
-    private static final PersistableEntry<?> NULL_ENTRY = new PersistableEntry<Object>(false, null);
-
-    private static <V extends Variables> Method<? super V> getMethod(Map<Integer, PersistableEntry<Method<? super V>>> methods, int paramCount) {
-        if (methods.containsKey(paramCount)) {
-            return methods.get(paramCount).value;
-        } else {
-            Method<? super V> method = null;
-            paramCount = -Math.abs(paramCount);
-            while (paramCount < 0 && method == null) {
-                method = methods.get(paramCount).value;
-                paramCount++;
-            }
-            return method;
-        }
-    }
-
     public void clear() {
-        for (Entry<String, Map<Integer, PersistableEntry<Method<? super V>>>> entry : this.methods.entrySet()) {
-            PersistableEntry.clear(entry.getValue(), false);
-            if (entry.getValue().isEmpty()) {
-                this.methods.remove(entry.getKey());
-            }
-        }
+        this.clearMethods();
     }
 
     public static int[] testParameters(final String name, final int[] paramCount) {
@@ -140,13 +114,26 @@ public class MethodParser<V extends Variables> {
         }
     }
 
-    private final Map<String, Map<Integer, PersistableEntry<Method<? super V>>>> methods = new HashMap<String, Map<Integer, PersistableEntry<Method<? super V>>>>();
-    private final Map<String, PersistableEntry<ParameterType>> variables = new HashMap<String, PersistableEntry<ParameterType>>();
+    /** The methods by their name. The tables are only replaced while synchronized on the map. */
+    private final ConcurrentMap<String, MethodTable<V>> methods = new ConcurrentHashMap<String, MethodTable<V>>();
+    /** The persistent variables, which are shared by all executions. */
+    private final ConcurrentMap<String, ParameterType> variables = new ConcurrentHashMap<String, ParameterType>();
+    /** The non persistent variables set on the parser, which are moved into the next execution. */
+    private final ConcurrentMap<String, ParameterType> nextVariables = new ConcurrentHashMap<String, ParameterType>();
     private final Map<String, ParameterTypeFactory> factories = new HashMap<String, ParameterTypeFactory>();
+    private final BoundedCache<String, Compiled> compileCache = new BoundedCache<String, Compiled>(DEFAULT_COMPILE_CACHE_SIZE);
+    /** The lines created while executing, separated so they don't evict the lines of the users. */
+    private final BoundedCache<String, Compiled> dynamicCache = new BoundedCache<String, Compiled>(DEFAULT_DYNAMIC_CACHE_SIZE);
     private final Logger logger;
 
     private String prefix = "";
+    private volatile int registryVersion = 0;
     private DecimalFormat defaultFormat = MinecraftUtil.MAX_TWO_DECIMALS_FORMAT;
+    private volatile DecimalFormatter defaultFormatter = DecimalFormatter.MAX_TWO_DECIMALS;
+    private volatile ExecutionBudget defaultBudget = ExecutionBudget.DEFAULT;
+    private volatile MethodMonitor monitor = MethodMonitor.NOOP;
+    private volatile ExecutionTracer tracer = null;
+    private volatile AdmissionLimits admissionLimits = AdmissionLimits.UNLIMITED;
 
     public MethodParser(final Logger logger, final String prefix) {
         this.logger = logger;
@@ -170,6 +157,10 @@ public class MethodParser<V extends Variables> {
         return this.factories.put(name.toLowerCase(), factory) != null;
     }
 
+    public Logger getLogger() {
+        return this.logger;
+    }
+
     public String getPrefix() {
         return this.prefix;
     }
@@ -183,50 +174,274 @@ public class MethodParser<V extends Variables> {
             throw new IllegalArgumentException("Prefix mustn't contain brackets.");
         }
         this.prefix = prefix;
+        this.registryChanged();
+    }
+
+    /**
+     * Returns the version of the method registry. Everytime the result of
+     * {@link #getMethod(String, int)} or of a {@link PureMethod} could change
+     * the version is increased, so call sites which store the resolved method
+     * or its result could validate it.
+     * 
+     * @return the current version of the method registry.
+     */
+    public int getRegistryVersion() {
+        return this.registryVersion;
+    }
+
+    private void registryChanged() {
+        synchronized (this.methods) {
+            this.registryVersion++;
+        }
     }
 
     public DecimalFormat getDefaultFormat() {
         return this.defaultFormat;
     }
 
+    /**
+     * Returns the formatter of the default format, which could be used by
+     * multiple threads at once.
+     * 
+     * @return the formatter of the default format.
+     */
+    public DecimalFormatter getDefaultFormatter() {
+        return this.defaultFormatter;
+    }
+
+    /**
+     * Returns the budget of executions which don't specify a budget. By
+     * default it only limits the depth to {@link #STOPPING_THRESHOLD}.
+     * 
+     * @return the default budget.
+     */
+    public ExecutionBudget getDefaultBudget() {
+        return this.defaultBudget;
+    }
+
+    public void setDefaultBudget(final ExecutionBudget defaultBudget) {
+        if (defaultBudget == null) {
+            throw new IllegalArgumentException("The budget mustn't be null.");
+        }
+        this.defaultBudget = defaultBudget;
+    }
+
+    /**
+     * Returns the monitor which observes the method calls of executions. By
+     * default it is {@link MethodMonitor#NOOP}, so the calls aren't timed.
+     * 
+     * @return the monitor of the method calls.
+     */
+    public MethodMonitor getMonitor() {
+        return this.monitor;
+    }
+
+    /**
+     * Sets the monitor of the method calls. It is only used by executions
+     * started after it was set.
+     * 
+     * @param monitor
+     *            the new monitor.
+     */
+    public void setMonitor(final MethodMonitor monitor) {
+        if (monitor == null) {
+            throw new IllegalArgumentException("The monitor mustn't be null.");
+        }
+        this.monitor = monitor;
+    }
+
+    /**
+     * Returns the tracer which records the call trees of sampled executions.
+     * 
+     * @return the tracer or null if no executions are traced.
+     */
+    public ExecutionTracer getTracer() {
+        return this.tracer;
+    }
+
+    /**
+     * Sets the tracer of the executions. It is only used by executions
+     * started after it was set.
+     * 
+     * @param tracer
+     *            the new tracer. If it is null no executions are traced.
+     */
+    public void setTracer(final ExecutionTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Returns the limits of the lines admitted by {@link #admit(String)}. By
+     * default all lines are admitted.
+     * 
+     * @return the admission limits.
+     */
+    public AdmissionLimits getAdmissionLimits() {
+        return this.admissionLimits;
+    }
+
+    public void setAdmissionLimits(final AdmissionLimits admissionLimits) {
+        if (admissionLimits == null) {
+            throw new IllegalArgumentException("The limits mustn't be null.");
+        }
+        this.admissionLimits = admissionLimits;
+    }
+
     public void setDefaultFormat(final DecimalFormat format) {
         if (format == null) {
             throw new IllegalArgumentException("Default format has to be not null.");
         }
         this.defaultFormat = format;
+        this.defaultFormatter = DecimalFormatter.of(format);
+        // The results of pure methods could depend on the format
+        this.registryChanged();
     }
 
-    @SuppressWarnings("unchecked")
-    private PersistableEntry<ParameterType> getVariableEntry(final String name) {
-        final PersistableEntry<ParameterType> entry = this.variables.get(name);
-        return entry == null ? ((PersistableEntry<ParameterType>) NULL_ENTRY) : entry;
-    }
-
+    /**
+     * Returns the value of a persistent variable. Non persistent variables
+     * are only available via {@link RuntimeOptions#getVariable(String)}.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @return the value of the variable or null if it is not set.
+     */
     public ParameterType getVariable(final String name) {
-        return this.getVariableEntry(name).value;
+        return this.variables.get(name);
     }
 
     public void addParameterTypeFactory(final String name, final ParameterTypeFactory factory) {
         this.setFactory(name, factory);
     }
 
+    /**
+     * Sets the value of a persistent variable. It is safe to call this while
+     * lines are executed on other threads.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @param value
+     *            the new value. If it is null the variable is unset.
+     */
+    public void setVariable(final String name, final ParameterType value) {
+        this.nextVariables.remove(name);
+        if (value == null) {
+            this.variables.remove(name);
+        } else {
+            this.variables.put(name, value);
+        }
+    }
+
+    /**
+     * Sets the value of a variable. A non persistent variable is moved into
+     * the next execution, so it is removed after that execution like before.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @param value
+     *            the new value.
+     * @param persistent
+     *            if the variable is persistent.
+     * @deprecated non persistent variables belong to one execution and are
+     *             set with
+     *             {@link RuntimeOptions#setVariable(String, ParameterType, boolean)}.
+     *             Persistent variables are set with
+     *             {@link #setVariable(String, ParameterType)}.
+     */
+    @Deprecated
     public void setVariable(final String name, final ParameterType value, final boolean persistent) {
-        this.variables.put(name, new PersistableEntry<ParameterType>(persistent, value));
+        if (persistent) {
+            this.setVariable(name, value);
+        } else {
+            this.variables.remove(name);
+            if (value == null) {
+                this.nextVariables.remove(name);
+            } else {
+                this.nextVariables.put(name, value);
+            }
+        }
+    }
+
+    /**
+     * Removes the non persistent variables set on the parser, so they are
+     * used by the execution which starts.
+     * 
+     * @return the variables or null if there are none.
+     */
+    Map<String, ParameterType> takeNextVariables() {
+        if (this.nextVariables.isEmpty()) {
+            return null;
+        }
+        final Map<String, ParameterType> taken = new HashMap<String, ParameterType>();
+        for (Entry<String, ParameterType> entry : this.nextVariables.entrySet()) {
+            // Another execution could take the variable at the same time
+            if (this.nextVariables.remove(entry.getKey(), entry.getValue())) {
+                taken.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return taken;
     }
 
+    /**
+     * Unsets a variable of the parser.
+     * 
+     * @param name
+     *            the name of the variable.
+     */
     public void unsetVariable(final String name) {
+        this.nextVariables.remove(name);
         this.variables.remove(name);
     }
 
+    /**
+     * Removes a persistent variable.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @return the previous value of the variable or null if it wasn't set.
+     */
+    public ParameterType removeVariable(final String name) {
+        return this.variables.remove(name);
+    }
+
+    /**
+     * Changes if a variable of the parser is persistent.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @param persistent
+     *            if the variable should be persistent.
+     * @deprecated use {@link RuntimeOptions#setPersistency(String, boolean)}
+     *             to move a variable into an execution. A variable which is no
+     *             longer persistent is moved into the next execution, like
+     *             with {@link #setVariable(String, ParameterType, boolean)}.
+     */
+    @Deprecated
     public void setPersistency(final String name, final boolean persistent) {
-        final PersistableEntry<ParameterType> entry = this.variables.get(name);
-        if (entry != null) {
-            entry.persistent = persistent;
+        if (persistent) {
+            final ParameterType value = this.nextVariables.remove(name);
+            if (value != null) {
+                this.variables.put(name, value);
+            }
+        } else {
+            final ParameterType value = this.variables.remove(name);
+            if (value != null) {
+                this.nextVariables.put(name, value);
+            }
         }
     }
 
+    /**
+     * Returns if a variable of the parser is persistent.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @return if the variable is set and persistent.
+     * @deprecated use {@link RuntimeOptions#isPersistent(String)} to include
+     *             the variables of an execution.
+     */
+    @Deprecated
     public boolean isPersistent(final String name) {
-        return this.getVariableEntry(name).persistent;
+        return this.isVariableSet(name);
     }
 
     public boolean isVariableSet(final String name) {
@@ -250,19 +465,20 @@ public class MethodParser<V extends Variables> {
     public int registerMethod(final String name, Method<? super V> method, int... paramCount) {
         paramCount = testParameters(name, paramCount);
         // TODO: Case insensitive?
-        Map<Integer, PersistableEntry<Method<? super V>>> methods = this.methods.get(name);
-        if (methods == null) {
-            methods = new HashMap<Integer, PersistableEntry<Method<? super V>>>();
-            this.methods.put(name, methods);
-        }
         int failCount = 0;
-        for (int i : paramCount) {
-            final PersistableEntry<Method<? super V>> entry = methods.get(name);
-            if (!entry.persistent) {
-                if (methods.put(i, new PersistableEntry<Method<? super V>>(false, method)) != null) {
+        synchronized (this.methods) {
+            MethodTable<V> methods = this.methods.get(name);
+            if (methods == null) {
+                methods = new MethodTable<V>();
+            }
+            for (int i : paramCount) {
+                if (methods.getRegistered(i) != null) {
                     failCount++;
                 }
+                methods = methods.with(i, method);
             }
+            this.methods.put(name, methods);
+            this.registryChanged();
         }
         return failCount;
     }
@@ -270,20 +486,23 @@ public class MethodParser<V extends Variables> {
     public int unregisterMethod(final String name, int... paramCount) {
         paramCount = testParameters(name, paramCount);
         // TODO: Case insensitive?
-        final Map<Integer, PersistableEntry<Method<? super V>>> methods = this.methods.get(name);
         int failCount = 0;
-        if (methods != null) {
-            for (int i : paramCount) {
-                final PersistableEntry<Method<? super V>> entry = methods.get(i);
-                if (!entry.persistent) {
-                    if (methods.remove(i) != null) {
+        synchronized (this.methods) {
+            MethodTable<V> methods = this.methods.get(name);
+            if (methods != null) {
+                for (int i : paramCount) {
+                    if (methods.getRegistered(i) != null) {
+                        methods = methods.with(i, null);
                         failCount++;
                     }
                 }
+                if (methods.isEmpty()) {
+                    this.methods.remove(name);
+                } else {
+                    this.methods.put(name, methods);
+                }
             }
-            if (methods.isEmpty()) {
-                this.methods.remove(name);
-            }
+            this.registryChanged();
         }
         return failCount;
     }
@@ -312,6 +531,25 @@ public class MethodParser<V extends Variables> {
      *         method found it will return null.
      */
     public Method<? super V> getMethod(final String name, final int paramCount) {
+        final MethodTable<V> methods = this.getTable(name);
+        if (methods != null) {
+            return methods.get(paramCount);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns if a call with the parameter count is handled by a method which
+     * accepts a variable number of parameters, because there is no method
+     * registered with exactly this parameter count.
+     */
+    boolean isVariadic(final String name, final int paramCount) {
+        final MethodTable<V> methods = this.getTable(name);
+        return methods != null && methods.getRegistered(paramCount) == null && methods.get(paramCount) != null;
+    }
+
+    private MethodTable<V> getTable(final String name) {
         // TODO: Case insensitive?
         if (name != null) {
             final int prefixLength;
@@ -320,37 +558,78 @@ public class MethodParser<V extends Variables> {
             } else {
                 prefixLength = this.getPrefix().length();
             }
-            Map<Integer, PersistableEntry<Method<? super V>>> methods = this.methods.get(name.substring(prefixLength));
-            if (methods != null) {
-                return getMethod(methods, paramCount);
-            } else {
-                return null;
-            }
+            return this.methods.get(name.substring(prefixLength));
         } else {
             return null;
         }
     }
 
     public void clearMethods() {
-        this.methods.clear();
-    }
-
-    private void cleanupVariables() {
-        PersistableEntry.clear(this.variables, false);
+        synchronized (this.methods) {
+            this.methods.clear();
+            this.registryChanged();
+        }
     }
 
     public static class Compiled {
 
         private final Parameter[] entries;
+        private final Texts<RuntimeOptions<?>> texts = new Texts<RuntimeOptions<?>>() {
+            @Override
+            public int getLength() {
+                return Compiled.this.entries.length;
+            }
+
+            @Override
+            public String getText(final int index, final RuntimeOptions<?> runtime) {
+                return Compiled.this.entries[index].getValue(runtime).asString();
+            }
+        };
+
+        /**
+         * The entries of a line which are converted into their texts while it
+         * is executed. It allows the compiled and the linked line to share the
+         * handling of the budget, variables and traces.
+         */
+        interface Texts<R extends RuntimeOptions<?>> {
+            int getLength();
+
+            String getText(int index, R runtime);
+        }
 
         public Compiled(final Parameter[] entries) {
             this.entries = entries;
         }
 
+        public Parameter[] getEntries() {
+            return this.entries.clone();
+        }
+
+        /**
+         * Executes the line. If the budget of the runtime options is exceeded
+         * a warning is logged and an empty text is returned.
+         * 
+         * @param runtime
+         *            the runtime options.
+         * @return the result of the line or an empty text if the budget was
+         *         exceeded.
+         */
         public String execute(final RuntimeOptions<?> runtime) {
-            final ParameterType result = this.executeOnly(runtime);
-            runtime.parser.cleanupVariables();
-            return result.asString();
+            return execute(this.texts, runtime);
+        }
+
+        /**
+         * Executes the line and aborts it if the budget of the runtime options
+         * is exceeded.
+         * 
+         * @param runtime
+         *            the runtime options.
+         * @return the result of the line.
+         * @throws BudgetExceededException
+         *             if the budget was exceeded.
+         */
+        public String executeWithinBudget(final RuntimeOptions<?> runtime) throws BudgetExceededException {
+            return executeWithinBudget(this.texts, runtime);
         }
 
         public ParameterType executeOnly(final RuntimeOptions<?> runtime) {
@@ -359,99 +638,361 @@ public class MethodParser<V extends Variables> {
             } else {
                 final StringBuilder builder = new StringBuilder();
                 for (int i = 0; i < this.entries.length; i++) {
-                    builder.append(this.entries[i].getValue(runtime).asString());
+                    builder.append(runtime.addOutput(this.entries[i].getValue(runtime).asString()));
                 }
                 return new StringParameterType(builder.toString());
             }
         }
+
+        /**
+         * Executes the line and writes the text of each entry directly into
+         * the output, without concatenating the complete result first.
+         * 
+         * @param out
+         *            the output the result is appended to.
+         * @param runtime
+         *            the runtime options.
+         * @throws IOException
+         *             if the output throws an exception.
+         * @throws BudgetExceededException
+         *             if the budget was exceeded. The output contains the text
+         *             of the entries written before.
+         */
+        public void executeTo(final Appendable out, final RuntimeOptions<?> runtime) throws IOException, BudgetExceededException {
+            executeTo(this.texts, out, runtime);
+        }
+
+        static <R extends RuntimeOptions<?>> String execute(final Texts<R> texts, final R runtime) {
+            try {
+                return executeWithinBudget(texts, runtime);
+            } catch (BudgetExceededException e) {
+                warnExceeded(runtime, e);
+                return "";
+            }
+        }
+
+        static <R extends RuntimeOptions<?>> String executeWithinBudget(final Texts<R> texts, final R runtime) throws BudgetExceededException {
+            final int length = texts.getLength();
+            runtime.startExecution();
+            try {
+                if (length == 1) {
+                    return runtime.addOutput(texts.getText(0, runtime));
+                } else {
+                    final StringBuilder builder = new StringBuilder();
+                    for (int i = 0; i < length; i++) {
+                        builder.append(runtime.addOutput(texts.getText(i, runtime)));
+                    }
+                    return builder.toString();
+                }
+            } catch (BudgetExceededException.Abort e) {
+                throw e.getCause();
+            } finally {
+                runtime.finishExecution();
+            }
+        }
+
+        static <R extends RuntimeOptions<?>> void executeTo(final Texts<R> texts, final Appendable out, final R runtime) throws IOException, BudgetExceededException {
+            final int length = texts.getLength();
+            runtime.startExecution();
+            try {
+                for (int i = 0; i < length; i++) {
+                    out.append(runtime.addOutput(texts.getText(i, runtime)));
+                }
+            } catch (BudgetExceededException.Abort e) {
+                throw e.getCause();
+            } finally {
+                runtime.finishExecution();
+            }
+        }
+    }
+
+    static void warnExceeded(final RuntimeOptions<?> runtime, final BudgetExceededException e) {
+        if (runtime.logger != null) {
+            runtime.logger.warning("Aborted execution: " + e.getMessage());
+        }
     }
 
+    /**
+     * Executes the compiled line with the {@link #getDefaultBudget() default
+     * budget}. If the budget is exceeded a warning is logged and an empty text
+     * is returned.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @param globalParameters
+     *            the variables available to the methods.
+     * @return the result of the line or an empty text if the budget was
+     *         exceeded.
+     */
     public String execute(final Compiled compiled, final V globalParameters) {
         return compiled.execute(new RuntimeOptions<V>(globalParameters, this, this.logger));
     }
 
-    public String execute(final String line, final V globalParameters) {
-        return this.execute(MethodParser.compile(line), globalParameters);
+    /**
+     * Executes the compiled line with the given budget instead of the
+     * {@link #getDefaultBudget() default budget}.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @param globalParameters
+     *            the variables available to the methods.
+     * @param budget
+     *            the limits of the execution.
+     * @return the result of the line.
+     * @throws BudgetExceededException
+     *             if the execution exceeded the budget.
+     */
+    public String execute(final Compiled compiled, final V globalParameters, final ExecutionBudget budget) throws BudgetExceededException {
+        return compiled.executeWithinBudget(new RuntimeOptions<V>(globalParameters, this, this.logger, budget));
     }
 
-    public static Compiled compile(final String line) {
-        final Parameter[] parsed = MethodParser.parseLine(line, new char[] { ',' }, new char[] { ' ' }, '"', '\\', '(', ')', null, true);
-        return new Compiled(parsed);
-    }
-
-    private static Parameter[] parseLine(final String line, final char[] paramDelimiter, final char[] delimiter, final char quote, final char escape, final Character bracketStart, final Character bracketEnd, final Character commentary, final boolean trimQuotes) {
-        final List<Parameter> values = new ArrayList<Parameter>();
-        MethodParser.getParameters(values, line, 0, paramDelimiter, delimiter, quote, escape, bracketStart, bracketEnd, commentary, trimQuotes);
-        return values.toArray(new Parameter[0]);
-    }
-
-    private static int getParameters(final List<Parameter> parameters, final String line, final int start, final char[] paramDelimiter, final char[] delimiter, final char quote, final char escape, final Character bracketStart, final Character bracketEnd, final Character commentary, final boolean trimQuotes) {
-        boolean quoted = false;
-        boolean quotedEntry = false;
-        boolean escaped = false;
-        int bracketLevel = 0;
-        int quotedWordLength = -1;
-        int quotedLastStart = -1;
-        final FillingArray<Character> word = new FillingArray<Character>(new Character[line.length()]);
-        int entryStart = 0;
-        for (int i = start; i <= line.length(); i++) {
-            final char c;
-            if (i < line.length()) {
-                c = line.charAt(i);
-            } else {
-                c = delimiter[0];
-            }
-            if (escaped) {
-                word.add(c);
-                escaped = false;
-            } else {
-                if (c == quote && bracketLevel <= 0) {
-                    if (trimQuotes) {
-                        if (quoted) {
-                            quotedWordLength = word.getFilledLength();
-                        } else if (quotedLastStart < 0) {
-                            quotedLastStart = word.getFilledLength();
-                        }
-                    }
-                    quoted = !quoted;
-                    if (quoted) {
-                        quotedEntry = true;
-                    }
-                } else if (c == escape) {
-                    escaped = true;
-                } else if ((ArrayUtil.indexOf(delimiter, c) >= 0 || Util.equals(bracketStart, c) || Util.equals(bracketEnd, c) || Util.equals(commentary, c)) && !quoted) {
-                    if (word.getFilledLength() > 0) {
-                        final int first = quotedLastStart < 0 ? 0 : quotedLastStart;
-                        final int last = quotedWordLength < 0 ? word.getFilledLength() : (quotedWordLength - first);
-                        final String string = ArrayUtil.getString(word.getFilledArray(), first, last);
-                        if (Util.equals(bracketStart, c)) {
-                            final List<Parameter> subParameters = new ArrayList<Parameter>();
-                            i = getParameters(subParameters, line, i + 1, paramDelimiter, paramDelimiter, quote, escape, bracketStart, bracketEnd, commentary, trimQuotes);
-                            final String full = line.substring(entryStart, i);
-                            parameters.add(new ParameterizedParameter(string, full, quotedEntry, subParameters.toArray(new Parameter[0])));
-                        } else {
-                            final String full = line.substring(entryStart, i);
-                            parameters.add(new Parameter(string, full, quotedEntry));
+    /**
+     * Executes the compiled line and appends the result to the output. This
+     * is useful for long lines which are written into a buffer or a
+     * {@link java.io.Writer} anyway.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @param globalParameters
+     *            the variables available to the methods.
+     * @param out
+     *            the output the result is appended to.
+     * @throws IOException
+     *             if the output throws an exception.
+     * @throws BudgetExceededException
+     *             if the execution exceeded the default budget.
+     */
+    public void execute(final Compiled compiled, final V globalParameters, final Appendable out) throws IOException, BudgetExceededException {
+        compiled.executeTo(out, new RuntimeOptions<V>(globalParameters, this, this.logger));
+    }
+
+    /**
+     * Executes the compiled line once for each of the variables. The line is
+     * {@link #optimize(Compiled) optimized} and {@link #link(Compiled) linked}
+     * only once for all variables.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @param globalParameters
+     *            the variables of each execution.
+     * @return the results in the same order as the variables.
+     */
+    public List<String> executeAll(final Compiled compiled, final List<? extends V> globalParameters) {
+        final LinkedTemplate<V> linked = this.link(this.optimize(compiled));
+        final List<String> results = new ArrayList<String>(globalParameters.size());
+        for (V variables : globalParameters) {
+            results.add(linked.execute(variables));
+        }
+        return results;
+    }
+
+    /**
+     * Executes the compiled line once for each of the variables like
+     * {@link #executeAll(Compiled, List)}, but splits the variables into
+     * chunks which are executed by the executor. The variables are copied
+     * once, so any list is read only sequentially.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @param globalParameters
+     *            the variables of each execution.
+     * @param executor
+     *            the executor which executes the chunks. If it is null the
+     *            lines are executed on the current thread.
+     * @return the results in the same order as the variables.
+     * @throws InterruptedException
+     *             if the current thread was interrupted while waiting for the
+     *             results.
+     */
+    public List<String> executeAll(final Compiled compiled, final List<? extends V> globalParameters, final ExecutorService executor) throws InterruptedException {
+        final int size = globalParameters.size();
+        if (executor == null || size < 2) {
+            return this.executeAll(compiled, globalParameters);
+        }
+        // The chunks read the variables by index, which is slow for lists like a LinkedList
+        final List<V> variables = new ArrayList<V>(globalParameters);
+        final LinkedTemplate<V> linked = this.link(this.optimize(compiled));
+        final String[] results = new String[size];
+        final int chunks = Math.min(size, Runtime.getRuntime().availableProcessors() * 4);
+        final int chunkSize = (size + chunks - 1) / chunks;
+        final List<Future<?>> futures = new ArrayList<Future<?>>(chunks);
+        try {
+            for (int start = 0; start < size; start += chunkSize) {
+                final int first = start;
+                final int last = Math.min(size, start + chunkSize);
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = first; i < last; i++) {
+                            results[i] = linked.execute(variables.get(i));
                         }
-                        entryStart = i;
-                        word.clearFill();
-                        quotedWordLength = -1;
-                        quotedEntry = false;
                     }
-                    if (Util.equals(commentary, c)) {
-                        return line.length();
-                    } else if (Util.equals(bracketEnd, c)) {
-                        return i;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    } else {
+                        throw new IllegalStateException(cause);
                     }
-                    quotedLastStart = -1;
-                } else if (Util.equals(commentary, c) && !quoted) {
-                    break;
-                } else {
-                    word.add(c);
                 }
             }
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return new ArrayList<String>(Arrays.asList(results));
+    }
+
+    public String execute(final String line, final V globalParameters) {
+        return this.execute(this.getCompiled(line), globalParameters);
+    }
+
+    /**
+     * Returns the compiled and {@link #optimize(Compiled) optimized} version
+     * of the line. If the compile cache is enabled it will only compile lines
+     * which aren't cached.
+     * 
+     * @param line
+     *            the line to compile.
+     * @return the compiled line.
+     * @see #getCompileCache()
+     */
+    public Compiled getCompiled(final String line) {
+        Compiled compiled = this.compileCache.get(line);
+        if (compiled == null) {
+            compiled = this.optimize(MethodParser.compile(line));
+            this.compileCache.put(line, compiled);
         }
-        return line.length();
+        return compiled;
+    }
+
+    /**
+     * Returns the cache used by {@link #getCompiled(String)} and
+     * {@link #execute(String, Variables)}. Setting the maximum size of the
+     * cache to zero disables it.
+     * 
+     * @return the cache of compiled lines.
+     */
+    public BoundedCache<String, Compiled> getCompileCache() {
+        return this.compileCache;
+    }
+
+    /**
+     * Returns the compiled version of a line which was created while
+     * executing another line, like the line of the recursive print method. The
+     * line isn't optimized, so it behaves like a line compiled with
+     * {@link #compile(String)}. If the dynamic cache is enabled it will only
+     * compile lines which aren't cached.
+     * 
+     * @param line
+     *            the created line.
+     * @return the compiled line.
+     * @see #getDynamicCache()
+     */
+    public Compiled getDynamicCompiled(final String line) {
+        Compiled compiled = this.dynamicCache.get(line);
+        if (compiled == null) {
+            compiled = MethodParser.compile(line);
+            this.dynamicCache.put(line, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns the cache used by {@link #getDynamicCompiled(String)}. Setting
+     * the maximum size of the cache to zero disables it.
+     * 
+     * @return the cache of created lines.
+     */
+    public BoundedCache<String, Compiled> getDynamicCache() {
+        return this.dynamicCache;
+    }
+
+    /**
+     * Evaluates all calls of {@link PureMethod pure methods} with only constant
+     * parameters once. The evaluated values are only used when executed by this
+     * parser and while the {@link #getRegistryVersion() registry version} is
+     * unchanged, otherwise the calls are evaluated as usual.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @return the optimized line, or the given line if nothing could be
+     *         evaluated.
+     */
+    public Compiled optimize(final Compiled compiled) {
+        return new ConstantFolder<V>(this, this.logger).fold(compiled);
+    }
+
+    /**
+     * Estimates the cost of the compiled line without executing it. The
+     * methods of the calls are looked up with the currently registered
+     * methods.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @return the estimated cost of the line.
+     */
+    public TemplateCost analyze(final Compiled compiled) {
+        return new CostAnalyzer<V>(this).analyze(compiled);
+    }
+
+    /**
+     * Compiles a line and checks its cost against the
+     * {@link #getAdmissionLimits() admission limits}. Only an admitted line is
+     * {@link #optimize(Compiled) optimized}, so no method of a rejected line
+     * is called. It is meant for lines which aren't trusted, so they aren't
+     * added to the compile cache.
+     * 
+     * @param line
+     *            the line to compile.
+     * @return the compiled and optimized line.
+     * @throws TemplateRejectedException
+     *             if the cost of the line exceeds the admission limits.
+     */
+    public Compiled admit(final String line) throws TemplateRejectedException {
+        return this.optimize(this.admit(MethodParser.compile(line)));
+    }
+
+    /**
+     * Checks the cost of a compiled line against the
+     * {@link #getAdmissionLimits() admission limits}. The line shouldn't be
+     * optimized, because the calls replaced by their values are evaluated
+     * again if the registered methods change and aren't counted.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @return the given line.
+     * @throws TemplateRejectedException
+     *             if the cost of the line exceeds the admission limits.
+     */
+    public Compiled admit(final Compiled compiled) throws TemplateRejectedException {
+        this.admissionLimits.check(this.analyze(compiled));
+        return compiled;
+    }
+
+    /**
+     * Links the compiled line to this parser. The linked line resolves the
+     * methods of the top level calls and the texts of constant entries only
+     * once.
+     * 
+     * @param compiled
+     *            the compiled line.
+     * @return the linked line.
+     */
+    public LinkedTemplate<V> link(final Compiled compiled) {
+        return new LinkedTemplate<V>(this, compiled);
+    }
+
+    public static Compiled compile(final String line) {
+        return new Compiled(DEFAULT_LEXER.parse(line));
     }
 
     public void loadDefaults() {
@@ -468,10 +1009,10 @@ public class MethodParser<V extends Variables> {
 
         new CaseCheckerMethod(EqualCheck.CLASSIC_EQUAL_CHECKER, "caseequals").register(this);
 
-        this.registerMethod("ifgreaterequals", new IfArithmeticMethod(EqualCheck.GREATER_EQUAL_CHECKER), 3, 4);
-        this.registerMethod("ifgreater", new IfArithmeticMethod(EqualCheck.GREATER_CHECKER), 3, 4);
-        this.registerMethod("iflower", new IfArithmeticMethod(EqualCheck.LOWER_CHECKER), 3, 4);
-        this.registerMethod("iflowerequals", new IfArithmeticMethod(EqualCheck.LOWER_EQUAL_CHECKER), 3, 4);
+        this.registerMethod("ifgreaterequals", new IfArithmeticMethod(IfArithmeticMethod.Comparison.GREATER_EQUAL), 3, 4);
+        this.registerMethod("ifgreater", new IfArithmeticMethod(IfArithmeticMethod.Comparison.GREATER), 3, 4);
+        this.registerMethod("iflower", new IfArithmeticMethod(IfArithmeticMethod.Comparison.LOWER), 3, 4);
+        this.registerMethod("iflowerequals", new IfArithmeticMethod(IfArithmeticMethod.Comparison.LOWER_EQUAL), 3, 4);
 
         this.registerMethod("random", new RandomMethod(), -1);
 
@@ -501,6 +1042,10 @@ public class MethodParser<V extends Variables> {
         new AddMethod(this).register(this);
         new SubtractMethod(this).register(this);
         new RoundMethod(this).register(this);
+        new SumMethod(this).register(this);
+        new AverageMethod(this).register(this);
+        new CountMethod(this).register(this);
+        new StandardDeviationMethod(this).register(this);
     }
 
     public void loadEssential() {
@@ -508,22 +1053,21 @@ public class MethodParser<V extends Variables> {
     }
 
     public void createRedirected(String name, String redirected, int... paramCounts) {
+        final MethodTable<V> methods = this.methods.get(redirected);
+        if (methods == null) {
+            return;
+        }
         final Collection<Integer> paramCountsSet;
-        Map<Integer, PersistableEntry<Method<? super V>>> methods = this.methods.get(redirected);
         if (paramCounts.length == 0) {
-            if (methods != null) {
-                paramCountsSet = methods.keySet();
-            } else {
-                paramCountsSet = new HashSet<Integer>(0);
-            }
+            paramCountsSet = methods.getParamCounts();
         } else {
             paramCountsSet = new HashSet<Integer>(paramCounts.length);
             for (int paramCount : paramCounts) {
                 paramCountsSet.add(paramCount);
             }
         }
-        for (int paramCount : paramCounts) {
-            Method<? super V> redirectedMethod = MethodParser.getMethod(methods, paramCount);
+        for (int paramCount : paramCountsSet) {
+            Method<? super V> redirectedMethod = methods.get(paramCount);
             if (redirectedMethod != null) {
                 this.registerMethod(name, new RedirectMethod<V>(redirectedMethod), paramCount);
             }
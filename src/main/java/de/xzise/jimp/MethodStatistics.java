@@ -0,0 +1,201 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import de.xzise.jimp.parameter.types.ParameterType;
+
+/**
+ * Monitor which counts the calls, failed calls and the total and maximum
+ * duration per method name. The counters of each method are striped by the
+ * calling thread, so threads calling the same method rarely write the same
+ * counter and no locks are used.
+ */
+public class MethodStatistics implements MethodMonitor {
+
+    /** The default number of stripes per method, at least the number of processors. */
+    public static final int DEFAULT_STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+
+    /** The counters of one stripe are spread over 64 bytes, so two stripes don't share a cache line. */
+    private static final int STRIDE = 8;
+    private static final int COUNT = 0;
+    private static final int FAILED = 1;
+    private static final int TOTAL = 2;
+
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+    private final int mask;
+
+    private static final class Counters {
+        public final AtomicLongArray stripes;
+        public final AtomicLong maximum = new AtomicLong();
+
+        public Counters(final int stripes) {
+            this.stripes = new AtomicLongArray(stripes * STRIDE);
+        }
+
+        public void add(final int stripe, final long nanos, final boolean failed) {
+            final int offset = stripe * STRIDE;
+            this.stripes.incrementAndGet(offset + COUNT);
+            if (failed) {
+                this.stripes.incrementAndGet(offset + FAILED);
+            }
+            this.stripes.addAndGet(offset + TOTAL, nanos);
+            long maximum = this.maximum.get();
+            while (nanos > maximum && !this.maximum.compareAndSet(maximum, nanos)) {
+                maximum = this.maximum.get();
+            }
+        }
+
+        public long sum(final int field) {
+            long sum = 0;
+            for (int i = field; i < this.stripes.length(); i += STRIDE) {
+                sum += this.stripes.get(i);
+            }
+            return sum;
+        }
+    }
+
+    /** The statistics of one method at the moment they were read. */
+    public static final class Snapshot {
+        public final String name;
+        public final long count;
+        public final long failedCount;
+        public final long totalNanos;
+        public final long maximumNanos;
+
+        public Snapshot(final String name, final long count, final long failedCount, final long totalNanos, final long maximumNanos) {
+            this.name = name;
+            this.count = count;
+            this.failedCount = failedCount;
+            this.totalNanos = totalNanos;
+            this.maximumNanos = maximumNanos;
+        }
+
+        public long getTotalTime(final TimeUnit unit) {
+            return unit.convert(this.totalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaximumTime(final TimeUnit unit) {
+            return unit.convert(this.maximumNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getAverageTime(final TimeUnit unit) {
+            return this.count == 0 ? 0 : unit.convert(this.totalNanos / this.count, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return this.name + ": " + this.count + " calls (" + this.failedCount + " failed), " + this.totalNanos + " ns total, " + this.maximumNanos + " ns maximum";
+        }
+    }
+
+    /** Comparator which sorts the methods with the highest total time first. */
+    public static final Comparator<Snapshot> BY_TOTAL_TIME = new Comparator<Snapshot>() {
+        @Override
+        public int compare(final Snapshot o1, final Snapshot o2) {
+            return o1.totalNanos < o2.totalNanos ? 1 : (o1.totalNanos == o2.totalNanos ? 0 : -1);
+        }
+    };
+
+    public MethodStatistics() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates new statistics.
+     * 
+     * @param stripes
+     *            the number of stripes per method. It has to be a power of
+     *            two.
+     */
+    public MethodStatistics(final int stripes) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("The number of stripes has to be a power of two.");
+        }
+        this.mask = stripes - 1;
+    }
+
+    @Override
+    public void called(final String name, final int paramCount, final long nanos, final ParameterType result) {
+        Counters counters = this.counters.get(name);
+        if (counters == null) {
+            counters = new Counters(this.mask + 1);
+            final Counters previous = this.counters.putIfAbsent(name, counters);
+            if (previous != null) {
+                counters = previous;
+            }
+        }
+        counters.add(this.getStripe(), nanos, result == null);
+    }
+
+    private int getStripe() {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & this.mask;
+    }
+
+    /**
+     * Returns the statistics of a method.
+     * 
+     * @param name
+     *            the name of the method.
+     * @return the statistics or null if the method wasn't called.
+     */
+    public Snapshot getStatistics(final String name) {
+        final Counters counters = this.counters.get(name);
+        if (counters == null) {
+            return null;
+        } else {
+            return new Snapshot(name, counters.sum(COUNT), counters.sum(FAILED), counters.sum(TOTAL), counters.maximum.get());
+        }
+    }
+
+    /**
+     * Returns the statistics of all called methods, sorted by their total
+     * time with the highest first.
+     * 
+     * @return the statistics of all called methods.
+     */
+    public List<Snapshot> getStatistics() {
+        final List<Snapshot> snapshots = new ArrayList<Snapshot>(this.counters.size());
+        for (String name : this.counters.keySet()) {
+            final Snapshot snapshot = this.getStatistics(name);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        Collections.sort(snapshots, BY_TOTAL_TIME);
+        return snapshots;
+    }
+
+    /**
+     * Removes the statistics of all methods. Calls which are counted at the
+     * same time may be lost.
+     */
+    public void reset() {
+        this.counters.clear();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * All methods registered with the same name. The methods with an exact
+ * parameter count are stored in an array indexed by the parameter count. For
+ * the methods which accept a minimum number of parameters the method used for
+ * each parameter count is computed when the table is created, so a lookup
+ * only reads two arrays. Tables are immutable, changing a method creates a
+ * new table.
+ */
+final class MethodTable<V extends Variables> {
+
+    private static final Method<?>[] EMPTY = new Method<?>[0];
+
+    /** The method with exactly the parameter count of the index. */
+    private final Method<? super V>[] exact;
+    /** The method registered with the negative index as parameter count. */
+    private final Method<? super V>[] variadic;
+    /**
+     * The method selected for at least the index as parameter count. The last
+     * entry is also used for all higher parameter counts.
+     */
+    private final Method<? super V>[] fallback;
+
+    @SuppressWarnings("unchecked")
+    public MethodTable() {
+        this((Method<? super V>[]) EMPTY, (Method<? super V>[]) EMPTY);
+    }
+
+    private MethodTable(final Method<? super V>[] exact, final Method<? super V>[] variadic) {
+        this.exact = exact;
+        this.variadic = variadic;
+        this.fallback = variadic.clone();
+        for (int i = 1; i < this.fallback.length; i++) {
+            if (this.fallback[i] == null) {
+                this.fallback[i] = this.fallback[i - 1];
+            }
+        }
+    }
+
+    /**
+     * Returns the method which is called with the parameter count. If there is
+     * no method registered with exactly this parameter count, it returns the
+     * method which accepts the most required parameters not more than the
+     * parameter count.
+     * 
+     * @param paramCount
+     *            the number of parameters. A negative value only selects
+     *            methods which accept a minimum number of parameters.
+     * @return the method or null if there is none.
+     */
+    public Method<? super V> get(final int paramCount) {
+        final int minimum;
+        if (paramCount >= 0) {
+            if (paramCount < this.exact.length && this.exact[paramCount] != null) {
+                return this.exact[paramCount];
+            }
+            minimum = paramCount;
+        } else {
+            minimum = -paramCount;
+        }
+        if (this.fallback.length == 0) {
+            return null;
+        } else {
+            return this.fallback[Math.min(minimum, this.fallback.length - 1)];
+        }
+    }
+
+    /**
+     * Returns the method registered with this parameter count.
+     * 
+     * @param paramCount
+     *            the parameter count the method was registered with.
+     * @return the method or null if there is no method registered with
+     *         exactly this parameter count.
+     */
+    public Method<? super V> getRegistered(final int paramCount) {
+        final Method<? super V>[] methods = paramCount < 0 ? this.variadic : this.exact;
+        final int index = Math.abs(paramCount);
+        return index < methods.length ? methods[index] : null;
+    }
+
+    /**
+     * Returns a table where the method is registered with the parameter count.
+     * 
+     * @param paramCount
+     *            the parameter count.
+     * @param method
+     *            the method. If it is null the method with the parameter count
+     *            is removed.
+     * @return the changed table.
+     */
+    public MethodTable<V> with(final int paramCount, final Method<? super V> method) {
+        if (paramCount < 0) {
+            return new MethodTable<V>(this.exact, set(this.variadic, -paramCount, method));
+        } else {
+            return new MethodTable<V>(set(this.exact, paramCount, method), this.variadic);
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.exact.length == 0 && this.variadic.length == 0;
+    }
+
+    /**
+     * Returns all parameter counts with a registered method.
+     * 
+     * @return the parameter counts with negative values for methods which
+     *         accept a minimum number of parameters.
+     */
+    public List<Integer> getParamCounts() {
+        final List<Integer> paramCounts = new ArrayList<Integer>();
+        for (int i = 0; i < this.exact.length; i++) {
+            if (this.exact[i] != null) {
+                paramCounts.add(i);
+            }
+        }
+        for (int i = 1; i < this.variadic.length; i++) {
+            if (this.variadic[i] != null) {
+                paramCounts.add(-i);
+            }
+        }
+        return paramCounts;
+    }
+
+    /**
+     * Copies the array with a changed entry. The copy is as short as possible,
+     * so an array without any method is empty.
+     */
+    private static <V extends Variables> Method<? super V>[] set(final Method<? super V>[] methods, final int index, final Method<? super V> method) {
+        int length = Math.max(methods.length, index + 1);
+        final Method<? super V>[] copy = copyOf(methods, length);
+        copy[index] = method;
+        while (length > 0 && copy[length - 1] == null) {
+            length--;
+        }
+        return length == copy.length ? copy : copyOf(copy, length);
+    }
+
+    private static <V extends Variables> Method<? super V>[] copyOf(final Method<? super V>[] methods, final int length) {
+        final Method<? super V>[] copy = newArray(length);
+        System.arraycopy(methods, 0, copy, 0, Math.min(length, methods.length));
+        return copy;
+    }
+
+    /**
+     * Creates an array of methods. Generic arrays can't be created directly,
+     * but the array only contains methods of the type parameter.
+     * 
+     * @param length
+     *            the length of the array.
+     * @return the new array.
+     */
+    @SuppressWarnings("unchecked")
+    static <V extends Variables> Method<? super V>[] newArray(final int length) {
+        return (Method<? super V>[]) new Method<?>[length];
+    }
+}
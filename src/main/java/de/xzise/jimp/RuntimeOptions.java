@@ -1,5 +1,8 @@
 package de.xzise.jimp;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import de.xzise.jimp.parameter.Parameter;
@@ -11,22 +14,353 @@ public class RuntimeOptions<V extends Variables> {
     public final V variables;
     public final MethodParser<V> parser;
     public final Logger logger;
+    private final ExecutionBudget budget;
+    private long deadline;
+    private final MethodMonitor monitor;
+    private ExecutionTracer.Trace trace;
     private int depth = 0;
+    private long calls = 0;
+    private long output = 0;
+    private boolean warned = false;
+    /** The non persistent variables of this execution, created on demand. */
+    private Map<String, ParameterType> variableScope;
+    private ParameterType[] arguments;
 
     public RuntimeOptions(final V variables, final MethodParser<V> parser, final Logger logger) {
+        this(variables, parser, logger, parser == null ? ExecutionBudget.UNLIMITED : parser.getDefaultBudget());
+    }
+
+    public RuntimeOptions(final V variables, final MethodParser<V> parser, final Logger logger, final ExecutionBudget budget) {
         this.variables = variables;
         this.parser = parser;
         this.logger = logger;
+        this.budget = budget;
+        this.monitor = parser == null ? MethodMonitor.NOOP : parser.getMonitor();
+        this.resetBudget();
+    }
+
+    /**
+     * Starts a new execution with the complete budget, so runtime options
+     * could be used for several lines. It resets the number of calls, the
+     * output length and the deadline, decides if the execution is traced and
+     * takes the non persistent variables set on the parser.
+     * Lines executed by methods don't start a new execution, so it does nothing
+     * while a method is called.
+     */
+    public void startExecution() {
+        if (this.depth == 0) {
+            this.resetBudget();
+            final ExecutionTracer tracer = this.parser == null ? null : this.parser.getTracer();
+            this.trace = tracer == null ? null : tracer.sample();
+            final Map<String, ParameterType> next = this.parser == null ? null : this.parser.takeNextVariables();
+            if (next != null) {
+                for (Map.Entry<String, ParameterType> entry : next.entrySet()) {
+                    if (!this.isScopedVariable(entry.getKey())) {
+                        this.setVariable(entry.getKey(), entry.getValue(), false);
+                    }
+                }
+            }
+        }
     }
 
+    private void resetBudget() {
+        this.calls = 0;
+        this.output = 0;
+        this.warned = false;
+        this.deadline = this.budget.hasTimeout() ? System.nanoTime() + this.budget.getTimeout(TimeUnit.NANOSECONDS) : 0;
+    }
+
+    /**
+     * Finishes an execution started by {@link #startExecution()}. It removes
+     * the non persistent variables and merges the trace of the execution. Like
+     * {@link #startExecution()} it does nothing while a method is called, so
+     * lines executed by methods keep the variables of the execution.
+     */
+    public void finishExecution() {
+        if (this.depth == 0) {
+            this.clearVariables();
+            this.finishTrace();
+        }
+    }
+
+    /**
+     * Calls the method like {@link #call(String, Method, Parameter[])} without
+     * reporting it to the monitor. It is used by methods which call another
+     * method on behalf of the reported method.
+     * 
+     * @param method
+     *            the called method.
+     * @param parameters
+     *            the parameters of the call.
+     * @return the result of the method.
+     */
     public ParameterType call(final Method<? super V> method, final Parameter[] parameters) {
+        return this.call(null, method, parameters);
+    }
+
+    /**
+     * Calls the method and checks the depth and number of calls against the
+     * budget. Every 64 calls the deadline is checked too. The call is reported
+     * to the {@link MethodParser#getMonitor() monitor} of the parser by the
+     * name of the method and recorded by the trace if this execution is
+     * {@link MethodParser#getTracer() traced}.
+     * 
+     * @param name
+     *            the name the method is called by. If it is null the call
+     *            isn't reported to the monitor or traced.
+     * @param method
+     *            the called method.
+     * @param parameters
+     *            the parameters of the call.
+     * @return the result of the method.
+     * @throws RuntimeException
+     *             if the budget is exceeded. It is converted into a
+     *             {@link BudgetExceededException} where the execution started.
+     */
+    public ParameterType call(final String name, final Method<? super V> method, final Parameter[] parameters) {
+        if (this.depth >= this.budget.getMaximumDepth()) {
+            throw this.exceeded(BudgetExceededException.Limit.DEPTH, this.budget.getMaximumDepth());
+        }
+        if (++this.calls > this.budget.getMaximumCalls()) {
+            throw this.exceeded(BudgetExceededException.Limit.CALLS, this.budget.getMaximumCalls());
+        }
+        if (this.budget.hasTimeout() && (this.calls & 63) == 0) {
+            this.checkDeadline();
+        }
         this.depth++;
-        final ParameterType result = method.call(parameters, this);
-        this.depth--;
-        return result;
+        if (this.depth == this.budget.getWarningDepth() && !this.warned) {
+            this.warned = true;
+            if (this.logger != null) {
+                this.logger.warning("The execution reached a depth of " + this.depth + " of at most " + this.budget.getMaximumDepth() + ".");
+            }
+        }
+        try {
+            if (name == null || (this.monitor == MethodMonitor.NOOP && this.trace == null)) {
+                return method.call(parameters, this);
+            } else {
+                return this.monitoredCall(name, method, parameters);
+            }
+        } finally {
+            this.depth--;
+        }
+    }
+
+    private ParameterType monitoredCall(final String name, final Method<? super V> method, final Parameter[] parameters) {
+        if (this.trace != null) {
+            this.trace.enter(name, parameters.length, this.depth);
+        }
+        final long start = System.nanoTime();
+        ParameterType result = null;
+        try {
+            result = method.call(parameters, this);
+            return result;
+        } finally {
+            final long nanos = System.nanoTime() - start;
+            this.monitor.called(name, parameters.length, nanos, result);
+            if (this.trace != null) {
+                this.trace.exit(nanos, result);
+            }
+        }
+    }
+
+    /**
+     * Returns if the method calls of this execution are traced.
+     * 
+     * @return if the method calls are traced.
+     */
+    public boolean isTraced() {
+        return this.trace != null;
+    }
+
+    /**
+     * Merges the calls traced since the last time into the tracer of the
+     * parser. It is called after a line was executed and does nothing if this
+     * execution isn't traced.
+     */
+    public void finishTrace() {
+        if (this.trace != null) {
+            this.trace.finish();
+        }
+    }
+
+    public MethodMonitor getMonitor() {
+        return this.monitor;
+    }
+
+    /**
+     * Adds text created by a line of this execution to the output and checks
+     * the output length and deadline against the budget.
+     * 
+     * @param text
+     *            the created text.
+     * @return the text.
+     * @throws RuntimeException
+     *             if the budget is exceeded like in
+     *             {@link #call(Method, Parameter[])}.
+     */
+    public String addOutput(final String text) {
+        if (text != null) {
+            this.output += text.length();
+            if (this.output > this.budget.getMaximumOutput()) {
+                throw this.exceeded(BudgetExceededException.Limit.OUTPUT, this.budget.getMaximumOutput());
+            }
+        }
+        if (this.budget.hasTimeout()) {
+            this.checkDeadline();
+        }
+        return text;
+    }
+
+    private void checkDeadline() {
+        if (System.nanoTime() - this.deadline > 0) {
+            throw this.exceeded(BudgetExceededException.Limit.TIME, this.budget.getTimeout(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private BudgetExceededException.Abort exceeded(final BudgetExceededException.Limit limit, final long maximum) {
+        return new BudgetExceededException.Abort(new BudgetExceededException(limit, maximum));
+    }
+
+    public ExecutionBudget getBudget() {
+        return this.budget;
+    }
+
+    public long getCallCount() {
+        return this.calls;
     }
 
     public int getDepth() {
         return this.depth;
     }
+
+    /**
+     * Sets the arguments which are read by the slots of a template. The
+     * previous arguments have to be restored after the template was executed,
+     * so templates could call other templates.
+     * 
+     * @param arguments
+     *            the new arguments.
+     * @return the previous arguments.
+     * @see #restoreArguments(ParameterType[])
+     */
+    public ParameterType[] enterArguments(final ParameterType[] arguments) {
+        final ParameterType[] previous = this.arguments;
+        this.arguments = arguments;
+        return previous;
+    }
+
+    public void restoreArguments(final ParameterType[] previous) {
+        this.arguments = previous;
+    }
+
+    /**
+     * Returns an argument of the current template.
+     * 
+     * @param index
+     *            the index of the argument.
+     * @return the argument or null if there is no such argument.
+     */
+    public ParameterType getArgument(final int index) {
+        if (this.arguments != null && index >= 0 && index < this.arguments.length) {
+            return this.arguments[index];
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value of a variable. A non persistent variable of this
+     * execution hides a persistent variable with the same name.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @return the value of the variable or null if it is not set.
+     */
+    public ParameterType getVariable(final String name) {
+        if (this.variableScope != null) {
+            final ParameterType value = this.variableScope.get(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return this.parser.getVariable(name);
+    }
+
+    /**
+     * Sets the value of a variable. Non persistent variables are only visible
+     * to this execution and are removed by {@link #clearVariables()}, while
+     * persistent variables are stored in the parser and shared by all
+     * executions.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @param value
+     *            the new value.
+     * @param persistent
+     *            if the variable is persistent.
+     */
+    public void setVariable(final String name, final ParameterType value, final boolean persistent) {
+        if (persistent) {
+            this.removeScopedVariable(name);
+            this.parser.setVariable(name, value);
+        } else {
+            if (this.variableScope == null) {
+                this.variableScope = new HashMap<String, ParameterType>();
+            }
+            this.variableScope.put(name, value);
+        }
+    }
+
+    public void unsetVariable(final String name) {
+        this.removeScopedVariable(name);
+        this.parser.unsetVariable(name);
+    }
+
+    /**
+     * Changes if a variable is persistent. A variable which is no longer
+     * persistent is moved from the parser into this execution.
+     * 
+     * @param name
+     *            the name of the variable.
+     * @param persistent
+     *            if the variable should be persistent.
+     */
+    public void setPersistency(final String name, final boolean persistent) {
+        if (persistent) {
+            final ParameterType value = this.removeScopedVariable(name);
+            if (value != null) {
+                this.parser.setVariable(name, value);
+            }
+        } else {
+            final ParameterType value = this.parser.removeVariable(name);
+            if (value != null) {
+                this.setVariable(name, value, false);
+            }
+        }
+    }
+
+    public boolean isPersistent(final String name) {
+        return !this.isScopedVariable(name) && this.parser.isVariableSet(name);
+    }
+
+    public boolean isVariableSet(final String name) {
+        return this.isScopedVariable(name) || this.parser.isVariableSet(name);
+    }
+
+    /**
+     * Removes all non persistent variables of this execution. The variables
+     * are dropped at once, so it doesn't depend on the number of variables and
+     * the persistent variables are not touched at all.
+     */
+    public void clearVariables() {
+        this.variableScope = null;
+    }
+
+    private boolean isScopedVariable(final String name) {
+        return this.variableScope != null && this.variableScope.containsKey(name);
+    }
+
+    private ParameterType removeScopedVariable(final String name) {
+        return this.variableScope == null ? null : this.variableScope.remove(name);
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+/**
+ * The estimated cost of a compiled line, which is computed without executing
+ * it. The estimate assumes that every parameter is evaluated once and doesn't
+ * include the cost of {@link DynamicMethod dynamic methods}.
+ */
+public final class TemplateCost {
+
+    private final int nodeCount;
+    private final int callCount;
+    private final int maximumDepth;
+    private final int dynamicCallCount;
+    private final int maximumFanOut;
+
+    public TemplateCost(final int nodeCount, final int callCount, final int maximumDepth, final int dynamicCallCount, final int maximumFanOut) {
+        this.nodeCount = nodeCount;
+        this.callCount = callCount;
+        this.maximumDepth = maximumDepth;
+        this.dynamicCallCount = dynamicCallCount;
+        this.maximumFanOut = maximumFanOut;
+    }
+
+    /**
+     * Returns the number of entries and parameters of the line, including the
+     * parameters of nested calls.
+     * 
+     * @return the number of entries and parameters.
+     */
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    public int getCallCount() {
+        return this.callCount;
+    }
+
+    /**
+     * Returns the maximum nesting depth of the calls. A line without calls has
+     * a depth of zero and a call in the line a depth of one.
+     * 
+     * @return the maximum nesting depth of the calls.
+     */
+    public int getMaximumDepth() {
+        return this.maximumDepth;
+    }
+
+    /**
+     * Returns the number of calls of {@link DynamicMethod dynamic methods}
+     * like <code>call</code>, aliases, scripts and <code>random</code>.
+     * 
+     * @return the number of dynamic calls.
+     */
+    public int getDynamicCallCount() {
+        return this.dynamicCallCount;
+    }
+
+    /**
+     * Returns the highest number of parameters passed to a method which
+     * accepts a variable number of parameters.
+     * 
+     * @return the highest number of parameters of variadic calls.
+     */
+    public int getMaximumFanOut() {
+        return this.maximumFanOut;
+    }
+
+    @Override
+    public String toString() {
+        return this.nodeCount + " nodes, " + this.callCount + " calls, depth " + this.maximumDepth + ", " + this.dynamicCallCount + " dynamic calls, fan-out " + this.maximumFanOut;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp;
+
+/**
+ * Thrown if the {@link TemplateCost cost} of a line exceeded one of the
+ * {@link AdmissionLimits admission limits} of the parser.
+ */
+public class TemplateRejectedException extends MethodException {
+
+    private static final long serialVersionUID = 6094128337502871143L;
+
+    public static enum Limit {
+        NODES("number of nodes"),
+        DEPTH("depth"),
+        DYNAMIC_CALLS("number of dynamic calls"),
+        FAN_OUT("fan-out");
+
+        public final String name;
+
+        private Limit(final String name) {
+            this.name = name;
+        }
+    }
+
+    private final Limit limit;
+    private final TemplateCost cost;
+
+    public TemplateRejectedException(final Limit limit, final TemplateCost cost, final int maximum) {
+        super("The line exceeded the maximum " + limit.name + " of " + maximum + " (" + cost + ").");
+        this.limit = limit;
+        this.cost = cost;
+    }
+
+    public Limit getLimit() {
+        return this.limit;
+    }
+
+    public TemplateCost getCost() {
+        return this.cost;
+    }
+}
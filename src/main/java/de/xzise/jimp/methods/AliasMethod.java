@@ -18,41 +18,234 @@
 
 package de.xzise.jimp.methods;
 
+import de.xzise.jimp.DynamicMethod;
 import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.MethodParser.Compiled;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterizedParameter;
+import de.xzise.jimp.parameter.SlotParameter;
 import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.parameter.types.StringParameterType;
 import de.xzise.jimp.preset.DefaultNamedMethod;
 import de.xzise.jimp.variables.Variables;
 
-public class AliasMethod<V extends Variables> extends DefaultNamedMethod<V> {
+/**
+ * Method which executes a line, where each <code>$n;</code> is replaced by the
+ * n-th parameter. If every placeholder is a complete unquoted entry the line
+ * is compiled once and the placeholders are slots which read the values of
+ * the parameters. The values are typed again like literals, so the result is
+ * the same as if they were inserted. Otherwise, or if a value would change
+ * the structure of the line, the values are inserted into the line which is
+ * compiled on every call.
+ */
+public class AliasMethod<V extends Variables> extends DefaultNamedMethod<V> implements DynamicMethod {
 
     private final String result;
     private final MethodParser<V> parser;
+    private final Compiled template;
+
+    /**
+     * Call in a template which contains placeholders in its text. The text of
+     * the call has the placeholders replaced like it would be if the values
+     * were inserted into the line, which is also the result if the method
+     * isn't found.
+     */
+    private static class TemplateCall extends ParameterizedParameter {
+
+        private final int paramCount;
+
+        public TemplateCall(final ParameterizedParameter call, final Parameter[] parameters, final int paramCount) {
+            super(call.methodName, call.getFullText(), call.quoted, parameters);
+            this.paramCount = paramCount;
+        }
+
+        @Override
+        protected <V extends Variables> ParameterType getInnerValue(final RuntimeOptions<V> runtime) {
+            final ParameterType result = super.getInnerValue(runtime);
+            if (result == null) {
+                return new StringParameterType(this.getText(runtime));
+            } else {
+                return result;
+            }
+        }
+
+        @Override
+        public <V extends Variables> String getText(final RuntimeOptions<V> runtime) {
+            String text = this.getFullText();
+            for (int i = 0; i < this.paramCount; i++) {
+                final ParameterType argument = runtime.getArgument(i);
+                if (argument != null) {
+                    text = text.replace(getPlaceholder(i), argument.asParsableString(runtime.parser.getPrefix()));
+                }
+            }
+            return text;
+        }
+    }
 
     public AliasMethod(final String result, final int paramCount, final String name, final MethodParser<V> parser) {
         super(name, paramCount);
         this.result = result;
         this.parser = parser;
+        this.template = createTemplate(result, paramCount);
     }
 
     public static <V extends Variables> AliasMethod<V> create(final String result, final int paramCount, final String name, final MethodParser<V> parser) {
         return new AliasMethod<V>(result, paramCount, name, parser);
     }
 
+    private static String getPlaceholder(final int index) {
+        return "$" + index + ";";
+    }
+
+    private static String insert(String line, final ParameterType[] values, final String prefix) {
+        for (int i = 0; i < values.length; i++) {
+            line = line.replace(getPlaceholder(i), values[i].asParsableString(prefix));
+        }
+        return line;
+    }
+
+    /**
+     * Returns the value typed like it would be if it was inserted into the
+     * line and parsed again.
+     * 
+     * @param value
+     *            the value of a parameter.
+     * @param prefix
+     *            the prefix of the methods.
+     * @return the typed value or null if the inserted value isn't a single
+     *         literal, like a text with commas or brackets.
+     */
+    private static ParameterType asLiteral(final ParameterType value, final String prefix) {
+        final String text = value.asParsableString(prefix);
+        if (text == null) {
+            return null;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            switch (text.charAt(i)) {
+            case '(':
+            case ')':
+            case ',':
+            case '"':
+            case '\\':
+            case '$':
+            case ';':
+                return null;
+            default:
+                if (Character.isWhitespace(text.charAt(i))) {
+                    return null;
+                }
+            }
+        }
+        return Parameter.createLiteral(text, false);
+    }
+
+    private static int countPlaceholders(final String line, final int paramCount) {
+        int count = 0;
+        for (int i = 0; i < paramCount; i++) {
+            final String placeholder = getPlaceholder(i);
+            for (int index = line.indexOf(placeholder); index >= 0; index = line.indexOf(placeholder, index + 1)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean containsPlaceholder(final String text, final int paramCount) {
+        return countPlaceholders(text, paramCount) > 0;
+    }
+
+    private static int getSlotIndex(final String text, final int paramCount) {
+        for (int i = 0; i < paramCount; i++) {
+            if (getPlaceholder(i).equals(text)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compiles the line and replaces each placeholder with a slot.
+     * 
+     * @param line
+     *            the line of the alias.
+     * @param paramCount
+     *            the number of parameters.
+     * @return the compiled line or null if not every placeholder could be
+     *         replaced by a slot.
+     */
+    private static Compiled createTemplate(final String line, final int paramCount) {
+        // Escaped placeholders would be escaped values if they are inserted
+        if (line.indexOf('\\') >= 0) {
+            return null;
+        }
+        final int[] slots = new int[1];
+        final Parameter[] entries = MethodParser.compile(line).getEntries();
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = createSlots(entries[i], paramCount, slots);
+        }
+        if (slots[0] == countPlaceholders(line, paramCount)) {
+            return new Compiled(entries);
+        } else {
+            return null;
+        }
+    }
+
+    private static Parameter createSlots(final Parameter parameter, final int paramCount, final int[] slots) {
+        if (parameter instanceof ParameterizedParameter) {
+            final ParameterizedParameter call = (ParameterizedParameter) parameter;
+            final Parameter[] parameters = new Parameter[call.getParameterCount()];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = createSlots(call.getParameter(i), paramCount, slots);
+            }
+            if (containsPlaceholder(call.getFullText(), paramCount)) {
+                return new TemplateCall(call, parameters, paramCount);
+            } else {
+                return call.withParameters(parameters);
+            }
+        } else if (!parameter.quoted) {
+            final int index = getSlotIndex(parameter.getText(), paramCount);
+            if (index >= 0) {
+                slots[0]++;
+                return new SlotParameter(parameter, index);
+            }
+        }
+        return parameter;
+    }
+
     @Override
     public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends V> runtime) {
         if (this.getParamCounts()[0] == parameters.length) {
-            String result = this.result;
+            final ParameterType[] values = new ParameterType[parameters.length];
             for (int i = 0; i < parameters.length; i++) {
-                result = result.replaceAll("\\$" + i + ";", parameters[i].getValue(runtime).asParsableString(this.parser.getPrefix()));
+                values[i] = parameters[i].getValue(runtime);
+            }
+            if (this.template != null) {
+                final ParameterType[] arguments = new ParameterType[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    arguments[i] = asLiteral(values[i], this.parser.getPrefix());
+                    if (arguments[i] == null) {
+                        return this.callInserted(values, runtime);
+                    }
+                }
+                final ParameterType[] previous = runtime.enterArguments(arguments);
+                try {
+                    return this.template.executeOnly(runtime);
+                } finally {
+                    runtime.restoreArguments(previous);
+                }
+            } else {
+                return this.callInserted(values, runtime);
             }
-            return MethodParser.compile(result).executeOnly(runtime);
         } else {
             return null;
         }
     }
 
+    private ParameterType callInserted(final ParameterType[] values, final RuntimeOptions<? extends V> runtime) {
+        return runtime.parser.getDynamicCompiled(insert(this.result, values, this.parser.getPrefix())).executeOnly(runtime);
+    }
+
     public AliasMethod<V> register() {
         super.register(this.parser);
         return this;
@@ -62,4 +255,9 @@ public class AliasMethod<V extends Variables> extends DefaultNamedMethod<V> {
         super.unregister(this.parser);
         return this;
     }
+
+    @Override
+    public boolean isDynamic() {
+        return true;
+    }
 }
@@ -18,15 +18,17 @@
 
 package de.xzise.jimp.methods;
 
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.parameter.types.ArrayParameterType;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.parameter.types.ParameterTypeFactory;
 import de.xzise.jimp.preset.DefaultNamedMethod;
 import de.xzise.jimp.variables.Variables;
 
-public class ArrayMethod extends DefaultNamedMethod<Variables> implements ParameterTypeFactory {
+public class ArrayMethod extends DefaultNamedMethod<Variables> implements ParameterTypeFactory, PureMethod {
 
     public static final ArrayMethod INSTANCE = new ArrayMethod();
 
@@ -36,14 +38,14 @@ public class ArrayMethod extends DefaultNamedMethod<Variables> implements Parame
 
     @Override
     public ParameterType call(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
-        return this.create(parameters, runtime);
+        return this.create(new ParameterSlice(parameters), runtime);
     }
 
     @Override
-    public ParameterType create(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
-        final ParameterType[] types = new ParameterType[parameters.length];
-        for (int i = 0; i < parameters.length; i++) {
-            types[i] = parameters[i].getValue(runtime);
+    public ParameterType create(final ParameterSlice parameters, final RuntimeOptions<?> runtime) {
+        final ParameterType[] types = new ParameterType[parameters.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = parameters.get(i).getValue(runtime);
         }
         return new ArrayParameterType(types);
     }
@@ -19,13 +19,14 @@
 package de.xzise.jimp.methods;
 
 import de.xzise.EqualCheck;
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.preset.DefaultNamedMethod;
 import de.xzise.jimp.variables.Variables;
 
-public class CaseCheckerMethod extends DefaultNamedMethod<Variables> {
+public class CaseCheckerMethod extends DefaultNamedMethod<Variables> implements PureMethod {
 
     private final EqualCheck<? super String> checker;
 
@@ -18,10 +18,11 @@
 
 package de.xzise.jimp.methods;
 
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.parameter.types.StringParameterType;
 import de.xzise.jimp.preset.EmptyMethod;
 
-public final class ConstantMethod extends EmptyMethod {
+public final class ConstantMethod extends EmptyMethod implements PureMethod {
 
     public static final ConstantMethod NULL_METHOD = new ConstantMethod(null, "null");
 
@@ -18,9 +18,9 @@
 
 package de.xzise.jimp.methods;
 
-import de.xzise.MinecraftUtil;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.parameter.types.ParameterTypeFactory;
 import de.xzise.jimp.preset.DefaultNamedMethod;
@@ -37,7 +37,7 @@ public class CreateMethod extends DefaultNamedMethod<Variables> {
         if (parameters.length >= 1) {
             ParameterTypeFactory factory = runtime.parser.getFactory(parameters[0].getValue(runtime).asString());
             if (factory != null) {
-                return factory.create(MinecraftUtil.subArray(parameters, 1), runtime);
+                return factory.create(new ParameterSlice(parameters, 1, parameters.length - 1), runtime);
             } else {
                 return null;
             }
@@ -19,19 +19,24 @@
 package de.xzise.jimp.methods;
 
 import java.text.DecimalFormat;
+import java.util.Collections;
+import java.util.Iterator;
 
 import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.parameter.types.CreateableParameterTypes;
 import de.xzise.jimp.parameter.types.NativeParameterType;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.parameter.types.ParameterTypeFactory;
 import de.xzise.jimp.parameter.types.StringParameterType;
 import de.xzise.jimp.preset.DefaultNamedMethod;
+import de.xzise.jimp.util.DecimalFormatter;
 import de.xzise.jimp.variables.Variables;
 
-public class DecimalFormatMethod extends DefaultNamedMethod<Variables> {
+public class DecimalFormatMethod extends DefaultNamedMethod<Variables> implements PureMethod {
 
     private static final String PARAMETER_TYPE_NAME = "decimalformat";
 
@@ -43,16 +48,20 @@ public class DecimalFormatMethod extends DefaultNamedMethod<Variables> {
     public static class DecimalFormatParameterType extends CreateableParameterTypes {
 
         public final String format;
-        private final DecimalFormat decFormat;
+        private final DecimalFormatter formatter;
 
         public DecimalFormatParameterType(final String format) {
-            this(format, new DecimalFormat(format));
+            this(format, DecimalFormatter.forPattern(format));
         }
 
         public DecimalFormatParameterType(final String format, final DecimalFormat decFormat) {
+            this(format, new DecimalFormatter(decFormat));
+        }
+
+        public DecimalFormatParameterType(final String format, final DecimalFormatter formatter) {
             super(PARAMETER_TYPE_NAME);
             this.format = format;
-            this.decFormat = decFormat;
+            this.formatter = formatter;
         }
 
         @Override
@@ -65,6 +74,24 @@ public class DecimalFormatMethod extends DefaultNamedMethod<Variables> {
             return new ParameterType[] { this };
         }
 
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public ParameterType get(final int index) {
+            if (index != 0) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: 1");
+            }
+            return this;
+        }
+
+        @Override
+        public Iterator<ParameterType> iterator() {
+            return Collections.<ParameterType> singleton(this).iterator();
+        }
+
         @Override
         public String asString() {
             return this.format;
@@ -76,7 +103,7 @@ public class DecimalFormatMethod extends DefaultNamedMethod<Variables> {
         }
 
         public String format(final Number number) {
-            return this.decFormat.format(number);
+            return this.formatter.format(number);
         }
 
         public static final DecimalFormatParameterTypeFactory DECIMAL_FORMAT_PARAMETER_TYPE_FACTORY = new DecimalFormatParameterTypeFactory();
@@ -84,9 +111,9 @@ public class DecimalFormatMethod extends DefaultNamedMethod<Variables> {
         public static class DecimalFormatParameterTypeFactory implements ParameterTypeFactory {
 
             @Override
-            public ParameterType create(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
-                if (parameters.length == 1) {
-                    String value = parameters[0].getValue(runtime).asString();
+            public ParameterType create(final ParameterSlice parameters, final RuntimeOptions<?> runtime) {
+                if (parameters.size() == 1) {
+                    String value = parameters.get(0).getValue(runtime).asString();
                     if (value != null) {
                         return new DecimalFormatParameterType(value);
                     }
@@ -106,7 +133,7 @@ public class DecimalFormatMethod extends DefaultNamedMethod<Variables> {
                 if (parameter instanceof DecimalFormatParameterType) {
                     return new StringParameterType(((DecimalFormatParameterType) parameter).format(n));
                 } else {
-                    return new StringParameterType(new DecimalFormat(parameter.asString()).format(n));
+                    return new StringParameterType(DecimalFormatter.forPattern(parameter.asString()).format(n));
                 }
             } else {
                 return null;
@@ -19,27 +19,75 @@
 package de.xzise.jimp.methods;
 
 import de.xzise.EqualCheck;
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
-import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.parameter.types.NativeParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.preset.IfMethod;
 import de.xzise.jimp.variables.Variables;
 
-public class IfArithmeticMethod extends IfMethod<Variables> {
+public class IfArithmeticMethod extends IfMethod<Variables> implements PureMethod {
+
+    /**
+     * Compares two doubles without boxing them.
+     */
+    public enum Comparison {
+        GREATER {
+            @Override
+            public boolean compare(final double a, final double b) {
+                return a > b;
+            }
+        },
+        GREATER_EQUAL {
+            @Override
+            public boolean compare(final double a, final double b) {
+                return a >= b;
+            }
+        },
+        LOWER {
+            @Override
+            public boolean compare(final double a, final double b) {
+                return a < b;
+            }
+        },
+        LOWER_EQUAL {
+            @Override
+            public boolean compare(final double a, final double b) {
+                return a <= b;
+            }
+        };
+
+        public abstract boolean compare(final double a, final double b);
+    }
 
     private final EqualCheck<? super Double> checker;
+    private final Comparison comparison;
 
     public IfArithmeticMethod(final EqualCheck<? super Double> checker) {
         super(2, false);
         this.checker = checker;
+        this.comparison = null;
+    }
+
+    public IfArithmeticMethod(final Comparison comparison) {
+        super(2, false);
+        this.checker = null;
+        this.comparison = comparison;
     }
 
     @Override
-    protected Boolean match(final Parameter[] preValues, final RuntimeOptions<?> runtime) {
-        Double a = NativeParameterType.asDouble(preValues[0].getValue(runtime));
-        Double b = NativeParameterType.asDouble(preValues[1].getValue(runtime));
-        if (a != null && b != null) {
-            return this.checker.equals(a, b);
+    protected Boolean match(final ParameterSlice preValues, final RuntimeOptions<?> runtime) {
+        final ParameterType a = preValues.get(0).getValue(runtime);
+        final ParameterType b = preValues.get(1).getValue(runtime);
+        if (NativeParameterType.hasDoubleValue(a) && NativeParameterType.hasDoubleValue(b)) {
+            final double aValue = NativeParameterType.asDoubleValue(a, 0);
+            final double bValue = NativeParameterType.asDoubleValue(b, 0);
+            if (this.comparison == null) {
+                return this.checker.equals(aValue, bValue);
+            } else {
+                return this.comparison.compare(aValue, bValue);
+            }
         } else {
             return null;
         }
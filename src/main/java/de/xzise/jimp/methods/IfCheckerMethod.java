@@ -21,12 +21,13 @@ package de.xzise.jimp.methods;
 import java.util.Comparator;
 
 import de.xzise.EqualCheck;
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
-import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.preset.IfMethod;
 import de.xzise.jimp.variables.Variables;
 
-public class IfCheckerMethod extends IfMethod<Variables> {
+public class IfCheckerMethod extends IfMethod<Variables> implements PureMethod {
 
     private final EqualCheck<? super String> checker;
 
@@ -40,7 +41,7 @@ public class IfCheckerMethod extends IfMethod<Variables> {
     }
 
     @Override
-    protected Boolean match(final Parameter[] preValues, final RuntimeOptions<?> runtime) {
-        return this.checker.equals(preValues[0].getValue(runtime).asString(), preValues[1].getValue(runtime).asString());
+    protected Boolean match(final ParameterSlice preValues, final RuntimeOptions<?> runtime) {
+        return this.checker.equals(preValues.get(0).getValue(runtime).asString(), preValues.get(1).getValue(runtime).asString());
     }
 }
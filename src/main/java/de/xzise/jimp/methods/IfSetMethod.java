@@ -18,19 +18,20 @@
 
 package de.xzise.jimp.methods;
 
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
-import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.preset.IfMethod;
 import de.xzise.jimp.variables.Variables;
 
-public class IfSetMethod extends IfMethod<Variables> {
+public class IfSetMethod extends IfMethod<Variables> implements PureMethod {
 
     public IfSetMethod(final boolean inverted) {
         super(1, inverted);
     }
 
     @Override
-    protected Boolean match(final Parameter[] preValues, final RuntimeOptions<?> runtime) {
-        return preValues[0].getValue(runtime) != null;
+    protected Boolean match(final ParameterSlice preValues, final RuntimeOptions<?> runtime) {
+        return preValues.get(0).getValue(runtime) != null;
     }
 }
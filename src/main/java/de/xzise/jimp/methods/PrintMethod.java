@@ -18,12 +18,11 @@
 
 package de.xzise.jimp.methods;
 
-import java.util.Iterator;
-
-import de.xzise.collections.ArrayIterator;
+import de.xzise.jimp.DynamicMethod;
 import de.xzise.jimp.MethodParser;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ArrayParameterType;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.parameter.types.StringParameterType;
 import de.xzise.jimp.preset.DefaultNamedMethod;
@@ -32,7 +31,7 @@ import de.xzise.jimp.variables.Variables;
 /**
  * Returns all parameters.
  */
-public class PrintMethod<V extends Variables> extends DefaultNamedMethod<V> {
+public class PrintMethod<V extends Variables> extends DefaultNamedMethod<V> implements DynamicMethod {
 
     private final boolean isRecursive;
     private final MethodParser<V> parser;
@@ -55,22 +54,23 @@ public class PrintMethod<V extends Variables> extends DefaultNamedMethod<V> {
             if (this.isRecursive) {
                 typeArray[i] = parameters[i].getValue(runtime);
             } else {
-                typeArray[i] = new StringParameterType(parameters[i].getText());
+                typeArray[i] = new StringParameterType(parameters[i].getText(runtime));
             }
         }
-        printArray(typeArray, builder);
+        printArray(new ArrayParameterType(typeArray), builder);
         if (this.isRecursive) {
-            return MethodParser.compile(builder.toString()).executeOnly(runtime);
+            return runtime.parser.getDynamicCompiled(builder.toString()).executeOnly(runtime);
         } else {
             return new StringParameterType(builder.toString());
         }
     }
 
-    private void printArray(final ParameterType[] array, final StringBuilder builder) {
-        for (Iterator<ParameterType> parameterItr = new ArrayIterator<ParameterType>(array); parameterItr.hasNext();) {
-            final ParameterType type = parameterItr.next();
+    private void printArray(final ParameterType array, final StringBuilder builder) {
+        final int size = array.size();
+        for (int i = 0; i < size; i++) {
+            final ParameterType type = array.get(i);
             if (type != null && type.isArray()) {
-                this.printArray(type.getArray(), builder);
+                this.printArray(type, builder);
             } else {
                 final String next = type == null ? null : type.asString();
                 if (next == null) {
@@ -80,7 +80,7 @@ public class PrintMethod<V extends Variables> extends DefaultNamedMethod<V> {
                 } else {
                     builder.append(next);
                 }
-                if (parameterItr.hasNext()) {
+                if (i + 1 < size) {
                     builder.append(" ");
                 }
             }
@@ -96,4 +96,15 @@ public class PrintMethod<V extends Variables> extends DefaultNamedMethod<V> {
         super.unregister(this.parser);
         return this;
     }
+
+    /**
+     * Returns if the method is recursive, so it executes its result as a
+     * line.
+     * 
+     * @return if the method is recursive.
+     */
+    @Override
+    public boolean isDynamic() {
+        return this.isRecursive;
+    }
 }
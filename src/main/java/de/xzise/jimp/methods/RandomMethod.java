@@ -19,13 +19,14 @@
 package de.xzise.jimp.methods;
 
 import de.xzise.MinecraftUtil;
+import de.xzise.jimp.DynamicMethod;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.preset.DefaultNamedMethod;
 import de.xzise.jimp.variables.Variables;
 
-public class RandomMethod extends DefaultNamedMethod<Variables> {
+public class RandomMethod extends DefaultNamedMethod<Variables> implements DynamicMethod {
 
     public RandomMethod() {
         super("random", -1);
@@ -36,4 +37,8 @@ public class RandomMethod extends DefaultNamedMethod<Variables> {
         return MinecraftUtil.getRandom(parameters).getValue(runtime);
     }
 
+    @Override
+    public boolean isDynamic() {
+        return true;
+    }
 }
@@ -18,44 +18,155 @@
 
 package de.xzise.jimp.methods;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.script.Compilable;
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
+import de.xzise.jimp.BudgetExceededException;
+import de.xzise.jimp.DynamicMethod;
 import de.xzise.jimp.Method;
 import de.xzise.jimp.RuntimeOptions;
-
-import de.xzise.MinecraftUtil;
 import de.xzise.jimp.parameter.Parameter;
 import de.xzise.jimp.parameter.types.BooleanParameterType;
 import de.xzise.jimp.parameter.types.DoubleParameterType;
 import de.xzise.jimp.parameter.types.LongParameterType;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.parameter.types.StringParameterType;
+import de.xzise.jimp.util.DecimalFormatter;
 import de.xzise.jimp.variables.Variables;
 
-public class ScriptMethod implements Method<Variables> {
+/**
+ * Method which calls a function of a script. If the script engine is thread
+ * safe one engine is shared by all threads. Otherwise each call borrows an
+ * engine of a pool, so concurrent calls never use the same engine. The pool
+ * creates new engines up to a maximum number and then waits a short time
+ * until an engine is returned. If no engine is returned a temporary engine is
+ * created, because the engines could be used by threads which wait for the
+ * engines of other script methods.
+ */
+public class ScriptMethod implements Method<Variables>, DynamicMethod {
+
+    public static final int DEFAULT_MAXIMUM_ENGINES = Runtime.getRuntime().availableProcessors();
+
+    /** How long a call waits for a pooled engine in milliseconds. */
+    private static final long ENGINE_TIMEOUT = 100;
 
-    private final Invocable invocable;
     private final String methodName;
     private final Logger logger;
 
+    /** The engine used by all threads, null if the engines are pooled. */
+    private final Invocable shared;
+    /** If the shared engine isn't thread safe and the calls are synchronized. */
+    private final boolean locked;
+
+    private final ScriptEngineManager engineManager;
+    private final String engineName;
+    private final String script;
+    private final int maximumEngines;
+    private final BlockingQueue<Invocable> idleEngines;
+    private final AtomicInteger engineCount = new AtomicInteger();
+    /** The pooled engine used by the current thread, so nested calls reuse it. */
+    private final ThreadLocal<Invocable> usedEngine = new ThreadLocal<Invocable>();
+
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maximumNanos = new AtomicLong();
+
+    /**
+     * Creates a method which uses only the given engine. If the engine isn't
+     * thread safe the calls are synchronized on the engine.
+     * 
+     * @param methodName
+     *            the name of the function in the script.
+     * @param invocable
+     *            the engine with the evaluated script.
+     * @param logger
+     *            the logger for errors of the script.
+     */
     public ScriptMethod(final String methodName, final Invocable invocable, final Logger logger) {
-        this.invocable = invocable;
         this.methodName = methodName;
         this.logger = logger;
+        this.shared = invocable;
+        this.locked = !(invocable instanceof ScriptEngine && isThreadSafe((ScriptEngine) invocable));
+        this.engineManager = null;
+        this.engineName = null;
+        this.script = null;
+        this.maximumEngines = 1;
+        this.idleEngines = null;
+        this.engineCount.set(1);
+    }
+
+    private ScriptMethod(final String methodName, final ScriptEngine first, final ScriptEngineManager engineManager, final String engineName, final String script, final int maximumEngines, final Logger logger) {
+        this.methodName = methodName;
+        this.logger = logger;
+        this.engineManager = engineManager;
+        this.engineName = engineName;
+        this.script = script;
+        this.engineCount.set(1);
+        if (isThreadSafe(first)) {
+            this.shared = (Invocable) first;
+            this.maximumEngines = 1;
+            this.idleEngines = null;
+        } else {
+            this.shared = null;
+            this.maximumEngines = maximumEngines;
+            this.idleEngines = new LinkedBlockingQueue<Invocable>();
+            this.idleEngines.add((Invocable) first);
+        }
+        this.locked = false;
     }
 
     public static ScriptMethod create(final String engineName, final String methodName, final Reader reader, final ScriptEngineManager engineManager, final Logger logger) {
-        ScriptEngine engine = getEngine(engineName, reader, engineManager, logger);
+        return create(engineName, methodName, reader, engineManager, DEFAULT_MAXIMUM_ENGINES, logger);
+    }
+
+    /**
+     * Creates a method which calls a function of the script. The script is
+     * read once and evaluated by every engine the method creates.
+     * 
+     * @param engineName
+     *            the name of the script engine.
+     * @param methodName
+     *            the name of the function in the script.
+     * @param reader
+     *            the reader of the script.
+     * @param engineManager
+     *            the manager which creates the engines.
+     * @param maximumEngines
+     *            the maximum number of engines if the engine isn't thread
+     *            safe.
+     * @param logger
+     *            the logger for errors of the script.
+     * @return the method or null if the script couldn't be evaluated or the
+     *         engine is not {@link Invocable}.
+     */
+    public static ScriptMethod create(final String engineName, final String methodName, final Reader reader, final ScriptEngineManager engineManager, final int maximumEngines, final Logger logger) {
+        if (maximumEngines < 1) {
+            throw new IllegalArgumentException("There has to be at least one engine.");
+        }
+        final String script;
+        try {
+            script = read(reader);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to read script.", e);
+            return null;
+        }
+        final ScriptEngine engine = createEngine(engineName, script, engineManager, logger);
         if (engine instanceof Invocable) {
-            return new ScriptMethod(methodName, (Invocable) engine, logger);
+            return new ScriptMethod(methodName, engine, engineManager, engineName, script, maximumEngines, logger);
         } else {
             return null;
         }
@@ -72,21 +183,158 @@ public class ScriptMethod implements Method<Variables> {
         return engine;
     }
 
-    @Override
-    public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
-        Object result = null;
+    /**
+     * Creates an engine and evaluates the script. If the engine is
+     * {@link Compilable} the script is compiled before it is evaluated.
+     * 
+     * @return the engine or null if the script couldn't be evaluated.
+     */
+    private static ScriptEngine createEngine(final String name, final String script, final ScriptEngineManager engineManager, final Logger logger) {
+        final ScriptEngine engine = engineManager.getEngineByName(name);
+        if (engine == null) {
+            logger.warning("There is no script engine named '" + name + "'.");
+            return null;
+        }
+        try {
+            if (engine instanceof Compilable) {
+                ((Compilable) engine).compile(script).eval();
+            } else {
+                engine.eval(script);
+            }
+            return engine;
+        } catch (ScriptException e) {
+            logger.log(Level.WARNING, "Unable to evaluate script.", e);
+            return null;
+        }
+    }
+
+    private static String read(final Reader reader) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        final char[] buffer = new char[4096];
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            builder.append(buffer, 0, read);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Checks if the engine could be used by several threads at the same
+     * time. Engines without a threading parameter are not thread safe.
+     * 
+     * @param engine
+     *            the engine to check.
+     * @return if the engine is thread safe.
+     */
+    private static boolean isThreadSafe(final ScriptEngine engine) {
+        return engine.getFactory() != null && engine.getFactory().getParameter("THREADING") != null;
+    }
+
+    /**
+     * Returns an engine which isn't used by another thread. If all engines are
+     * used and the maximum number is reached it waits for an engine. It is
+     * only called if the current thread doesn't use an engine already, so the
+     * engine it waits for is used by other threads. Those threads could wait
+     * for an engine of another script method used by this thread, so after
+     * waiting {@link #ENGINE_TIMEOUT} milliseconds it creates a temporary
+     * engine, which is dropped by {@link #returnEngine(Invocable)}.
+     * 
+     * @return the engine or null if no engine could be created or the thread
+     *         was interrupted.
+     */
+    private Invocable borrowEngine() {
+        Invocable engine = this.idleEngines.poll();
+        if (engine == null) {
+            if (this.engineCount.incrementAndGet() > this.maximumEngines) {
+                this.engineCount.decrementAndGet();
+                try {
+                    engine = this.idleEngines.poll(ENGINE_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                if (engine != null) {
+                    return engine;
+                }
+                this.engineCount.incrementAndGet();
+            }
+            final ScriptEngine created = createEngine(this.engineName, this.script, this.engineManager, this.logger);
+            if (created instanceof Invocable) {
+                return (Invocable) created;
+            }
+            this.engineCount.decrementAndGet();
+        }
+        return engine;
+    }
+
+    /**
+     * Returns a borrowed engine to the pool. While temporary engines are used
+     * there are more engines than the maximum, so the engine is dropped
+     * instead.
+     * 
+     * @param engine
+     *            the borrowed engine.
+     */
+    private void returnEngine(final Invocable engine) {
+        int count = this.engineCount.get();
+        while (count > this.maximumEngines) {
+            if (this.engineCount.compareAndSet(count, count - 1)) {
+                return;
+            }
+            count = this.engineCount.get();
+        }
+        this.idleEngines.add(engine);
+    }
+
+    private Object invoke(final Invocable engine, final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
         try {
-            result = this.invocable.invokeFunction(this.methodName, parameters, runtime);
+            if (this.locked) {
+                synchronized (engine) {
+                    return engine.invokeFunction(this.methodName, parameters, runtime);
+                }
+            } else {
+                return engine.invokeFunction(this.methodName, parameters, runtime);
+            }
         } catch (ScriptException e) {
+            // A method called by the script exceeded the budget
+            BudgetExceededException.rethrowAbort(e);
             this.logger.log(Level.WARNING, "Unable to call '" + this.methodName + "(Parameter[], Variables)'!", e);
         } catch (NoSuchMethodException e) {
             this.logger.log(Level.WARNING, "No such method named '" + this.methodName + "(Parameter[], Variables)'!", e);
         }
+        return null;
+    }
+
+    @Override
+    public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+        final long start = System.nanoTime();
+        Object result = null;
+        if (this.shared != null) {
+            result = this.invoke(this.shared, parameters, runtime);
+        } else {
+            final Invocable used = this.usedEngine.get();
+            if (used != null) {
+                // A parameter of the script calls this method again, waiting for another engine could block forever
+                result = this.invoke(used, parameters, runtime);
+            } else {
+                final Invocable engine = this.borrowEngine();
+                if (engine != null) {
+                    this.usedEngine.set(engine);
+                    try {
+                        result = this.invoke(engine, parameters, runtime);
+                    } finally {
+                        this.usedEngine.remove();
+                        this.returnEngine(engine);
+                    }
+                }
+            }
+        }
+        this.record(System.nanoTime() - start);
         // Test the result for the different types
         if (result instanceof Number) {
             Number number = (Number) result;
             if (number instanceof Double || number instanceof Float || number instanceof BigDecimal) {
-                return new DoubleParameterType(number.doubleValue(), MinecraftUtil.MAX_TWO_DECIMALS_FORMAT);
+                return new DoubleParameterType(number.doubleValue(), DecimalFormatter.MAX_TWO_DECIMALS);
             } else {
                 return new LongParameterType(number.longValue());
             }
@@ -99,4 +347,74 @@ public class ScriptMethod implements Method<Variables> {
         }
     }
 
+    private void record(final long nanos) {
+        this.callCount.incrementAndGet();
+        this.totalNanos.addAndGet(nanos);
+        long maximum = this.maximumNanos.get();
+        while (nanos > maximum && !this.maximumNanos.compareAndSet(maximum, nanos)) {
+            maximum = this.maximumNanos.get();
+        }
+    }
+
+    /**
+     * Returns the number of engines of this method, including the temporary
+     * engines which are used at the moment. If the engine is shared it is
+     * always one.
+     * 
+     * @return the number of engines.
+     */
+    public int getEngineCount() {
+        return this.engineCount.get();
+    }
+
+    public int getMaximumEngines() {
+        return this.maximumEngines;
+    }
+
+    public long getCallCount() {
+        return this.callCount.get();
+    }
+
+    /**
+     * Returns the time spent in all calls, including the time waiting for an
+     * engine.
+     * 
+     * @param unit
+     *            the unit of the time.
+     * @return the time spent in all calls.
+     */
+    public long getTotalTime(final TimeUnit unit) {
+        return unit.convert(this.totalNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaximumTime(final TimeUnit unit) {
+        return unit.convert(this.maximumNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the average time of a call.
+     * 
+     * @param unit
+     *            the unit of the time.
+     * @return the average time or zero if there were no calls.
+     */
+    public double getAverageTime(final TimeUnit unit) {
+        final long calls = this.callCount.get();
+        if (calls == 0) {
+            return 0;
+        } else {
+            return (double) this.totalNanos.get() / calls / unit.toNanos(1);
+        }
+    }
+
+    public void resetStatistics() {
+        this.callCount.set(0);
+        this.totalNanos.set(0);
+        this.maximumNanos.set(0);
+    }
+
+    @Override
+    public boolean isDynamic() {
+        return true;
+    }
 }
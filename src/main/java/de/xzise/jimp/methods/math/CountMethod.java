@@ -0,0 +1,41 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp.methods.math;
+
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.parameter.types.LongParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.preset.AggregateMethod;
+import de.xzise.jimp.util.DecimalFormatter;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Returns the number of numbers, so values which are no numbers aren't
+ * counted.
+ */
+public class CountMethod extends AggregateMethod {
+
+    public CountMethod(final MethodParser<? extends Variables> parser) {
+        super("count", parser, false);
+    }
+
+    @Override
+    protected ParameterType getResult(final Aggregate aggregate, final DecimalFormatter formatter) {
+        return new LongParameterType(aggregate.getCount());
+    }
+}
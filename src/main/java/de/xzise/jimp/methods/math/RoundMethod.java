@@ -18,18 +18,18 @@
 
 package de.xzise.jimp.methods.math;
 
-import java.text.DecimalFormat;
-
 import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
-import de.xzise.jimp.parameter.types.DoubleParameter;
 import de.xzise.jimp.parameter.types.DoubleParameterType;
+import de.xzise.jimp.parameter.types.NativeParameterType;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.preset.DefaultNamedMethod;
+import de.xzise.jimp.util.DecimalFormatter;
 import de.xzise.jimp.variables.Variables;
 
-public class RoundMethod extends DefaultNamedMethod<Variables> {
+public class RoundMethod extends DefaultNamedMethod<Variables> implements PureMethod {
 
     private final MethodParser<?> parser;
 
@@ -42,17 +42,17 @@ public class RoundMethod extends DefaultNamedMethod<Variables> {
     public ParameterType call(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
         final ParameterType type = parameters[0].getValue(runtime);
         final double d;
-        final DecimalFormat format;
-        if (type instanceof DoubleParameter) {
-            d = Math.round(((DoubleParameter) type).asDouble());
+        final DecimalFormatter format;
+        if (NativeParameterType.hasDoubleValue(type)) {
+            d = Math.round(NativeParameterType.asDoubleValue(type, 0));
         } else {
             return null;
         }
 
         if (type instanceof DoubleParameterType) {
-            format = ((DoubleParameterType) type).getFormat();
+            format = ((DoubleParameterType) type).getFormatter(this.parser.getDefaultFormatter());
         } else {
-            format = this.parser.getDefaultFormat();
+            format = this.parser.getDefaultFormatter();
         }
         return new DoubleParameterType(d, format);
     }
@@ -19,6 +19,7 @@
 package de.xzise.jimp.methods.math;
 
 import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
 import de.xzise.jimp.parameter.types.DoubleParameterType;
@@ -27,7 +28,7 @@ import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.preset.DefaultNamedMethod;
 import de.xzise.jimp.variables.Variables;
 
-public class SubtractMethod extends DefaultNamedMethod<Variables> {
+public class SubtractMethod extends DefaultNamedMethod<Variables> implements PureMethod {
 
     private final MethodParser<?> parser;
 
@@ -39,14 +40,10 @@ public class SubtractMethod extends DefaultNamedMethod<Variables> {
     @Override
     public ParameterType call(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
         double difference = 0D;
-        Double buffer;
         for (Parameter parameter : parameters) {
-            buffer = NativeParameterType.asDouble(parameter.getValue(runtime));
-            if (buffer != null) {
-                difference -= buffer;
-            }
+            difference -= NativeParameterType.asDoubleValue(parameter.getValue(runtime), 0);
         }
-        return new DoubleParameterType(difference, this.parser.getDefaultFormat());
+        return new DoubleParameterType(difference, this.parser.getDefaultFormatter());
     }
 
 }
@@ -32,6 +32,6 @@ public class IsVarPersistent extends DefaultNamedMethod<Variables> {
 
     @Override
     public BooleanParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
-        return new BooleanParameterType(runtime.parser.isPersistent(parameters[0].getValue(runtime).asString()));
+        return new BooleanParameterType(runtime.isPersistent(parameters[0].getValue(runtime).asString()));
     }
 }
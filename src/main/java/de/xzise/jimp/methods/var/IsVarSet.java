@@ -32,7 +32,7 @@ public class IsVarSet extends DefaultNamedMethod<Variables> {
 
     @Override
     public BooleanParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
-        return new BooleanParameterType(runtime.parser.isVariableSet(parameters[0].getValue(runtime).asString()));
+        return new BooleanParameterType(runtime.isVariableSet(parameters[0].getValue(runtime).asString()));
     }
 
 }
@@ -41,7 +41,7 @@ public class ReturnVarMethod<V extends Variables> extends DefaultNamedMethod<V>
 
     protected ParameterType getValue(final Parameter[] parameters, final RuntimeOptions<? extends V> runtime) {
         if (parameters.length == 2) {
-            return parameters[0].getValue(runtime);
+            return parameters[1].getValue(runtime);
         } else if (parameters.length > 2) {
             final ParameterType[] array = new ParameterType[parameters.length - 1];
             for (int i = 1; i < parameters.length; i++) {
@@ -60,9 +60,9 @@ public class ReturnVarMethod<V extends Variables> extends DefaultNamedMethod<V>
             final String name = parameters[0].getValue(runtime).asString();
             value = this.getValue(parameters, runtime);
             if (value == null) {
-                return runtime.parser.getVariable(name);
+                return runtime.getVariable(name);
             } else {
-                runtime.parser.setVariable(name, value, this.persistent);
+                runtime.setVariable(name, value, this.persistent);
             }
         } else {
             value = NativeParameterType.NULL_PARAMETER_TYPE;
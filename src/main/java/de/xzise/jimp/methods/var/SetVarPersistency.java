@@ -36,7 +36,7 @@ public class SetVarPersistency extends DefaultNamedMethod<Variables> {
     @Override
     public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
         for (Parameter parameter : parameters) {
-            runtime.parser.setPersistency(parameter.getValue(runtime).asString(), this.persistent);
+            runtime.setPersistency(parameter.getValue(runtime).asString(), this.persistent);
         }
         return null;
     }
@@ -34,7 +34,7 @@ public class UnsetVarMethod<V extends Variables> extends DefaultNamedMethod<V> {
     @Override
     public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends V> runtime) {
         for (Parameter parameter : parameters) {
-            runtime.parser.unsetVariable(parameter.getValue(runtime).asString());
+            runtime.unsetVariable(parameter.getValue(runtime).asString());
         }
         return NativeParameterType.EMPTY_PARAMETER_TYPE;
     }
@@ -0,0 +1,58 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.parameter;
+
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Parameter which replaces a call with an already evaluated value. The value
+ * is only used by the parser which evaluated it and as long as its registry
+ * version is unchanged. Otherwise the original parameter is evaluated.
+ */
+public class FoldedParameter extends Parameter {
+
+    private final Parameter original;
+    private final ParameterType value;
+    private final MethodParser<?> parser;
+    private final int version;
+
+    public FoldedParameter(final Parameter original, final ParameterType value, final MethodParser<?> parser, final int version) {
+        super(original.getText(), original.getFullText(), original.quoted, true);
+        this.original = original;
+        this.value = value;
+        this.parser = parser;
+        this.version = version;
+    }
+
+    @Override
+    protected <V extends Variables> ParameterType getInnerValue(final RuntimeOptions<V> runtime) {
+        if (runtime.parser == this.parser && this.parser.getRegistryVersion() == this.version) {
+            return this.value;
+        } else {
+            return this.original.getInnerValue(runtime);
+        }
+    }
+
+    public Parameter getOriginal() {
+        return this.original;
+    }
+}
@@ -1,8 +1,11 @@
 package de.xzise.jimp.parameter;
 
 import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.parameter.types.DoubleParameterType;
+import de.xzise.jimp.parameter.types.LongParameterType;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.parameter.types.StringParameterType;
+import de.xzise.jimp.util.DecimalFormatter;
 import de.xzise.jimp.variables.Variables;
 
 public class Parameter {
@@ -13,6 +16,8 @@ public class Parameter {
     private final String full;
     public final boolean quoted;
     public final boolean finalValue;
+    /** The typed value of a final parameter, created once by the constructor. */
+    private final ParameterType literal;
 
     public Parameter(final String entry, final String full, final boolean quoted) {
         this(entry, full, quoted, true);
@@ -23,10 +28,68 @@ public class Parameter {
         this.full = full;
         this.quoted = quoted;
         this.finalValue = finalValue;
+        this.literal = finalValue ? createLiteral(entry, quoted) : null;
+    }
+
+    /**
+     * Returns the type of a literal. Unquoted integers and decimals are
+     * numbers, everything else is a string. Numbers keep the text of the
+     * literal as their string value. Decimals have no format, so methods use
+     * the default format of the parser which executes them.
+     * 
+     * @param text
+     *            the text of the literal.
+     * @param quoted
+     *            if the literal was quoted.
+     * @return the type of the literal.
+     */
+    public static ParameterType createLiteral(final String text, final boolean quoted) {
+        if (!quoted && text != null) {
+            final String trimmed = text.trim();
+            final int point = getNumberPoint(trimmed);
+            try {
+                if (point < 0) {
+                    return new LongParameterType(Long.parseLong(trimmed), text);
+                } else if (point > 0) {
+                    return new DoubleParameterType(Double.parseDouble(trimmed), (DecimalFormatter) null, text);
+                }
+            } catch (NumberFormatException e) {
+                // Too large for a long, so keep it as a string
+            }
+        }
+        return new StringParameterType(text);
+    }
+
+    /**
+     * Checks if the text is a decimal number like <code>-12</code> or
+     * <code>3.14</code>.
+     * 
+     * @param text
+     *            the text to check.
+     * @return -1 if it is an integer, the index of the point if it is a
+     *         decimal and 0 if it is no number.
+     */
+    private static int getNumberPoint(final String text) {
+        int point = -1;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '-' && i == 0) {
+                continue;
+            } else if (c == '.' && point < 0 && digits > 0) {
+                point = i;
+                digits = 0;
+            } else {
+                return 0;
+            }
+        }
+        return digits > 0 ? point : 0;
     }
 
     protected <V extends Variables> ParameterType getInnerValue(final RuntimeOptions<V> runtime) {
-        return new StringParameterType(this.entry);
+        return this.literal;
     }
 
     public final <V extends Variables> ParameterType getValue(final RuntimeOptions<V> runtime) {
@@ -42,6 +105,18 @@ public class Parameter {
         return this.entry;
     }
 
+    /**
+     * Returns the text of this parameter in an execution. Only the parameters
+     * of templates have a different text in each execution.
+     * 
+     * @param runtime
+     *            the runtime options of the execution.
+     * @return the text of this parameter.
+     */
+    public <V extends Variables> String getText(final RuntimeOptions<V> runtime) {
+        return this.getText();
+    }
+
     public String getFullText() {
         return this.full;
     }
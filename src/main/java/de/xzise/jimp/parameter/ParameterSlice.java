@@ -0,0 +1,91 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.parameter;
+
+/**
+ * Read-only view of consecutive parameters of an array. It doesn't copy the
+ * parameters, so a method could pass a part of its parameters without
+ * allocating a new array.
+ */
+public final class ParameterSlice {
+
+    public static final ParameterSlice EMPTY = new ParameterSlice(new Parameter[0]);
+
+    private final Parameter[] parameters;
+    private final int offset;
+    private final int length;
+
+    public ParameterSlice(final Parameter[] parameters) {
+        this(parameters, 0, parameters.length);
+    }
+
+    /**
+     * Creates a view of parameters of the array.
+     * 
+     * @param parameters
+     *            the viewed array, which mustn't be changed afterwards.
+     * @param offset
+     *            the index of the first parameter in the array.
+     * @param length
+     *            the number of parameters.
+     * @throws IndexOutOfBoundsException
+     *             if the parameters aren't inside of the array.
+     */
+    public ParameterSlice(final Parameter[] parameters, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset > parameters.length - length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + length + ", Array length: " + parameters.length);
+        }
+        this.parameters = parameters;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int size() {
+        return this.length;
+    }
+
+    public Parameter get(final int index) {
+        if (index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.length);
+        }
+        return this.parameters[this.offset + index];
+    }
+
+    /**
+     * Returns the parameters after the first parameters, without copying them.
+     * 
+     * @param start
+     *            the number of skipped parameters.
+     * @return the view of the remaining parameters.
+     */
+    public ParameterSlice slice(final int start) {
+        return new ParameterSlice(this.parameters, this.offset + start, this.length - start);
+    }
+
+    /**
+     * Returns a copy of the parameters.
+     * 
+     * @return a new array with the parameters.
+     */
+    public Parameter[] toArray() {
+        final Parameter[] copy = new Parameter[this.length];
+        System.arraycopy(this.parameters, this.offset, copy, 0, this.length);
+        return copy;
+    }
+}
@@ -1,6 +1,7 @@
 package de.xzise.jimp.parameter;
 
 import de.xzise.jimp.Method;
+import de.xzise.jimp.MethodParser;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.variables.Variables;
@@ -8,6 +9,23 @@ import de.xzise.jimp.variables.Variables;
 public class ParameterizedParameter extends Parameter {
         public final String methodName;
         private final Parameter[] parameters;
+        private volatile Binding binding;
+
+        /**
+         * The method resolved by a parser for this call site. It is only valid
+         * as long as the registry version of the parser hasn't changed.
+         */
+        private static final class Binding {
+            public final MethodParser<?> parser;
+            public final int version;
+            public final Method<?> method;
+
+            public Binding(final MethodParser<?> parser, final int version, final Method<?> method) {
+                this.parser = parser;
+                this.version = version;
+                this.method = method;
+            }
+        }
 
         public ParameterizedParameter(final String methodName, final String entry, final boolean quoted, final Parameter[] parameters) {
             super(entry, entry, quoted, false);
@@ -15,11 +33,42 @@ public class ParameterizedParameter extends Parameter {
             this.parameters = parameters;
         }
 
+        public int getParameterCount() {
+            return this.parameters.length;
+        }
+
+        public Parameter getParameter(final int index) {
+            return this.parameters[index];
+        }
+
+        /**
+         * Creates a call to the same method with different parameters.
+         * 
+         * @param parameters
+         *            the new parameters.
+         * @return a new call with the same method name and text.
+         */
+        public ParameterizedParameter withParameters(final Parameter[] parameters) {
+            return new ParameterizedParameter(this.methodName, this.getFullText(), this.quoted, parameters);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <V extends Variables> Method<? super V> getMethod(final MethodParser<V> parser) {
+            // Read the version before the lookup, so a concurrent change invalidates the binding
+            final int version = parser.getRegistryVersion();
+            Binding binding = this.binding;
+            if (binding == null || binding.parser != parser || binding.version != version) {
+                binding = new Binding(parser, version, parser.getMethod(this.methodName, this.parameters.length));
+                this.binding = binding;
+            }
+            return (Method<? super V>) binding.method;
+        }
+
         @Override
         protected <V extends Variables> ParameterType getInnerValue(final RuntimeOptions<V> runtime) {
-            final Method<? super V> method = runtime.parser.getMethod(this.methodName, this.parameters.length);
+            final Method<? super V> method = this.getMethod(runtime.parser);
             if (method != null) {
-                return runtime.call(method, this.parameters);
+                return runtime.call(this.methodName, method, this.parameters);
             } else {
                 return null;
 //                throw AssemblingException.createMethodNotFound("method", this.entry, this.parameters.length);
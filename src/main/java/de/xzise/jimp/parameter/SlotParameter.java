@@ -0,0 +1,50 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.parameter;
+
+import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Parameter which is replaced by an argument of the runtime options. If there
+ * are no arguments the text of the placeholder is used.
+ * 
+ * @see RuntimeOptions#enterArguments(ParameterType[])
+ */
+public class SlotParameter extends Parameter {
+
+    public final int index;
+
+    public SlotParameter(final Parameter placeholder, final int index) {
+        super(placeholder.getText(), placeholder.getFullText(), placeholder.quoted, false);
+        this.index = index;
+    }
+
+    @Override
+    protected <V extends Variables> ParameterType getInnerValue(final RuntimeOptions<V> runtime) {
+        return runtime.getArgument(this.index);
+    }
+
+    @Override
+    public <V extends Variables> String getText(final RuntimeOptions<V> runtime) {
+        final ParameterType argument = runtime.getArgument(this.index);
+        return argument == null ? this.getText() : argument.asParsableString(runtime.parser.getPrefix());
+    }
+}
@@ -18,7 +18,11 @@
 
 package de.xzise.jimp.parameter.types;
 
-public class ArrayParameterType extends CreateableParameterTypes implements DoubleParameter, LongParameter, BooleanParameter {
+import java.util.Iterator;
+
+import de.xzise.collections.ArrayIterator;
+
+public class ArrayParameterType extends CreateableParameterTypes implements PrimitiveDoubleParameter, PrimitiveLongParameter, BooleanParameter {
 
     private final ParameterType[] array;
     private final ParameterType value;
@@ -47,6 +51,21 @@ public class ArrayParameterType extends CreateableParameterTypes implements Doub
         return this.array.clone();
     }
 
+    @Override
+    public int size() {
+        return this.array.length;
+    }
+
+    @Override
+    public ParameterType get(final int index) {
+        return this.array[index];
+    }
+
+    @Override
+    public Iterator<ParameterType> iterator() {
+        return new ArrayIterator<ParameterType>(this.array);
+    }
+
     @Override
     public Number asNumber() {
         return NativeParameterType.asNumber(this.value);
@@ -57,18 +76,38 @@ public class ArrayParameterType extends CreateableParameterTypes implements Doub
         return NativeParameterType.asDouble(this.value);
     }
 
+    @Override
+    public boolean hasDoubleValue() {
+        return NativeParameterType.hasDoubleValue(this.value);
+    }
+
+    @Override
+    public double asDoubleValue() {
+        return NativeParameterType.asDoubleValue(this.value, 0);
+    }
+
     @Override
     public Long asLong() {
         return NativeParameterType.asLong(this.value);
     }
 
+    @Override
+    public boolean hasLongValue() {
+        return NativeParameterType.hasLongValue(this.value);
+    }
+
+    @Override
+    public long asLongValue() {
+        return NativeParameterType.asLongValue(this.value, 0);
+    }
+
     @Override
     protected void getContent(StringBuilder builder) {
         for (int i = 0; i < this.array.length; i++) {
             if (i > 0) {
                 builder.append(",");
             }
-            builder.append(" \"").append(this.array[i]).append("\" ");
+            builder.append(" \"").append(this.array[i].asString()).append("\" ");
         }
     }
 
@@ -19,7 +19,7 @@
 package de.xzise.jimp.parameter.types;
 
 import de.xzise.jimp.RuntimeOptions;
-import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.preset.DefaultMethod;
 
 public class BooleanParameterType extends NativeParameterType implements BooleanParameter {
@@ -45,9 +45,9 @@ public class BooleanParameterType extends NativeParameterType implements Boolean
     public static class BooleanParameterTypeFactory implements ParameterTypeFactory {
 
         @Override
-        public ParameterType create(Parameter[] parameters, RuntimeOptions<?> runtime) {
-            if (parameters.length == 1) {
-                Boolean b = DefaultMethod.parseAsBoolean(parameters[0].getValue(runtime).asString());
+        public ParameterType create(final ParameterSlice parameters, final RuntimeOptions<?> runtime) {
+            if (parameters.size() == 1) {
+                Boolean b = DefaultMethod.parseAsBoolean(parameters.get(0).getValue(runtime).asString());
                 if (b != null) {
                     return new BooleanParameterType(b);
                 }
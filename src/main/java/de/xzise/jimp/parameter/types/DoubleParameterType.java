@@ -21,41 +21,112 @@ package de.xzise.jimp.parameter.types;
 import java.text.DecimalFormat;
 
 import de.xzise.jimp.RuntimeOptions;
-import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
+import de.xzise.jimp.util.DecimalFormatter;
 
 import de.xzise.MinecraftUtil;
 
-public class DoubleParameterType extends NativeParameterType implements DoubleParameter, NumberParameter {
+public class DoubleParameterType extends NativeParameterType implements PrimitiveDoubleParameter, NumberParameter {
 
-    private final Double value;
-    private final DecimalFormat format;
+    private final double value;
+    private final DecimalFormatter formatter;
+    private final String text;
 
     public DoubleParameterType(final double value, final DecimalFormat format) {
+        this(value, DecimalFormatter.of(format), null);
+    }
+
+    public DoubleParameterType(final double value, final DecimalFormatter formatter) {
+        this(value, formatter, null);
+    }
+
+    /**
+     * Creates a double which is printed with a fixed text, like the text of a
+     * literal. The format is still used by methods which calculate a new value
+     * from this value.
+     * 
+     * @param value
+     *            the value.
+     * @param format
+     *            the format of the value. If it is null methods use the
+     *            default format of the parser which executes them.
+     * @param text
+     *            the string value. If it is null the value is formatted.
+     */
+    public DoubleParameterType(final double value, final DecimalFormat format, final String text) {
+        this(value, DecimalFormatter.of(format), text);
+    }
+
+    public DoubleParameterType(final double value, final DecimalFormatter formatter, final String text) {
         this.value = value;
-        this.format = format;
+        this.formatter = formatter;
+        this.text = text;
     }
 
     public DoubleParameterType(final double value, final int minimumDecimals, final int maximumDecimals) {
-        this(value, MinecraftUtil.getFormatWithMinimumDecimals(minimumDecimals, maximumDecimals));
+        this(value, DecimalFormatter.forDecimals(minimumDecimals, maximumDecimals));
     }
 
     @Override
     public Double asDouble() {
+        return Double.valueOf(this.value);
+    }
+
+    @Override
+    public boolean hasDoubleValue() {
+        return true;
+    }
+
+    @Override
+    public double asDoubleValue() {
         return this.value;
     }
 
     @Override
     public Number asNumber() {
-        return this.value;
+        return Double.valueOf(this.value);
     }
 
     @Override
     public String asString() {
-        return this.format.format(this.value);
+        if (this.text != null) {
+            return this.text;
+        } else {
+            return this.getFormatter(DecimalFormatter.MAX_TWO_DECIMALS).format(this.value);
+        }
     }
 
+    /**
+     * Returns a copy of the format of this value.
+     * 
+     * @return a copy of the format or null if the value uses the default
+     *         format.
+     * @see #getFormatter()
+     */
     public DecimalFormat getFormat() {
-        return this.format;
+        return this.formatter == null ? null : this.formatter.getFormat();
+    }
+
+    /**
+     * Returns the formatter of this value.
+     * 
+     * @return the formatter or null if the value uses the default format, like
+     *         decimal literals.
+     */
+    public DecimalFormatter getFormatter() {
+        return this.formatter;
+    }
+
+    /**
+     * Returns the formatter of this value or the default formatter if it has
+     * none.
+     * 
+     * @param defaultFormatter
+     *            the default formatter, usually the one of the parser.
+     * @return the formatter of this value.
+     */
+    public DecimalFormatter getFormatter(final DecimalFormatter defaultFormatter) {
+        return this.formatter == null ? defaultFormatter : this.formatter;
     }
 
     public static final DoubleParameterTypeFactory DOUBLE_PARAMETER_TYPE_FACTORY = new DoubleParameterTypeFactory();
@@ -63,19 +134,19 @@ public class DoubleParameterType extends NativeParameterType implements DoublePa
     public static class DoubleParameterTypeFactory implements ParameterTypeFactory {
 
         @Override
-        public ParameterType create(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
+        public ParameterType create(final ParameterSlice parameters, final RuntimeOptions<?> runtime) {
             Long minDecimals = 0L;
             Long maxDecimals = 0L;
             Double d = null;
-            switch (parameters.length) {
+            switch (parameters.size()) {
             case 3:
-                minDecimals = NativeParameterType.asLong(parameters[2].getValue(runtime));
+                minDecimals = NativeParameterType.asLong(parameters.get(2).getValue(runtime));
             case 2:
-                maxDecimals = NativeParameterType.asLong(parameters[1].getValue(runtime));
+                maxDecimals = NativeParameterType.asLong(parameters.get(1).getValue(runtime));
             case 1:
-                d = NativeParameterType.asDouble(parameters[0].getValue(runtime));
+                d = NativeParameterType.asDouble(parameters.get(0).getValue(runtime));
                 if (d == null) {
-                    final String value = parameters[0].getValue(runtime).asString();
+                    final String value = parameters.get(0).getValue(runtime).asString();
                     if (value != null) {
                         d = MinecraftUtil.tryAndGetDouble(value);
                     }
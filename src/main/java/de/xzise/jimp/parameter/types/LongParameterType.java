@@ -19,35 +19,70 @@
 package de.xzise.jimp.parameter.types;
 
 import de.xzise.jimp.RuntimeOptions;
-import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.preset.DefaultMethod;
 
-public class LongParameterType extends NativeParameterType implements LongParameter, NumberParameter, DoubleParameter {
+public class LongParameterType extends NativeParameterType implements PrimitiveLongParameter, NumberParameter, PrimitiveDoubleParameter {
 
-    private final Long value;
+    private final long value;
+    private final String text;
 
     public LongParameterType(final long value) {
+        this(value, null);
+    }
+
+    /**
+     * Creates a long which is printed with a fixed text, like the text of a
+     * literal.
+     * 
+     * @param value
+     *            the value.
+     * @param text
+     *            the string value. If it is null the value is printed.
+     */
+    public LongParameterType(final long value, final String text) {
         this.value = value;
+        this.text = text;
     }
 
     @Override
     public Double asDouble() {
-        return new Double(this.value);
+        return Double.valueOf(this.value);
     }
 
     @Override
-    public Number asNumber() {
+    public boolean hasDoubleValue() {
+        return true;
+    }
+
+    @Override
+    public double asDoubleValue() {
         return this.value;
     }
 
+    @Override
+    public Number asNumber() {
+        return Long.valueOf(this.value);
+    }
+
     @Override
     public Long asLong() {
+        return Long.valueOf(this.value);
+    }
+
+    @Override
+    public boolean hasLongValue() {
+        return true;
+    }
+
+    @Override
+    public long asLongValue() {
         return this.value;
     }
 
     @Override
     public String asString() {
-        return Long.toString(this.value);
+        return this.text == null ? Long.toString(this.value) : this.text;
     }
 
     public static final LongParameterTypeFactory LONG_PARAMETER_TYPE_FACTORY = new LongParameterTypeFactory();
@@ -55,9 +90,9 @@ public class LongParameterType extends NativeParameterType implements LongParame
     public static class LongParameterTypeFactory implements ParameterTypeFactory {
 
         @Override
-        public ParameterType create(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
-            if (parameters.length == 1) {
-                Long l = DefaultMethod.parseAsLong(parameters[0].getValue(runtime).asString());
+        public ParameterType create(final ParameterSlice parameters, final RuntimeOptions<?> runtime) {
+            if (parameters.size() == 1) {
+                Long l = DefaultMethod.parseAsLong(parameters.get(0).getValue(runtime).asString());
                 if (l != null) {
                     return new LongParameterType(l);
                 }
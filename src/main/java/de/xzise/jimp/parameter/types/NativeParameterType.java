@@ -29,7 +29,7 @@ public abstract class NativeParameterType extends NonArrayParameterType {
         };
     };
 
-    public static class NullParameterType extends NativeParameterType implements DoubleParameter, LongParameter, BooleanParameter {
+    public static class NullParameterType extends NativeParameterType implements PrimitiveDoubleParameter, PrimitiveLongParameter, BooleanParameter {
 
         @Override
         public Number asNumber() {
@@ -41,11 +41,31 @@ public abstract class NativeParameterType extends NonArrayParameterType {
             return null;
         }
 
+        @Override
+        public boolean hasDoubleValue() {
+            return false;
+        }
+
+        @Override
+        public double asDoubleValue() {
+            return 0;
+        }
+
         @Override
         public Long asLong() {
             return null;
         }
 
+        @Override
+        public boolean hasLongValue() {
+            return false;
+        }
+
+        @Override
+        public long asLongValue() {
+            return 0;
+        }
+
         @Override
         public String asString() {
             return null;
@@ -70,6 +90,42 @@ public abstract class NativeParameterType extends NonArrayParameterType {
         }
     }
 
+    /**
+     * Returns if the parameter has a long value. If it is a
+     * {@link PrimitiveLongParameter} the value isn't boxed.
+     * 
+     * @param parameter
+     *            the parameter.
+     * @return if the parameter has a long value.
+     */
+    public static boolean hasLongValue(final ParameterType parameter) {
+        if (parameter instanceof PrimitiveLongParameter) {
+            return ((PrimitiveLongParameter) parameter).hasLongValue();
+        } else {
+            return asLong(parameter) != null;
+        }
+    }
+
+    /**
+     * Returns the long value of the parameter. If it is a
+     * {@link PrimitiveLongParameter} the value isn't boxed.
+     * 
+     * @param parameter
+     *            the parameter.
+     * @param defaultValue
+     *            the value returned if the parameter has no long value.
+     * @return the long value of the parameter or the default value.
+     */
+    public static long asLongValue(final ParameterType parameter, final long defaultValue) {
+        if (parameter instanceof PrimitiveLongParameter) {
+            final PrimitiveLongParameter primitive = (PrimitiveLongParameter) parameter;
+            return primitive.hasLongValue() ? primitive.asLongValue() : defaultValue;
+        } else {
+            final Long value = asLong(parameter);
+            return value == null ? defaultValue : value;
+        }
+    }
+
     public static Number asNumber(final ParameterType parameter) {
         if (parameter instanceof NumberParameter) {
             return ((NumberParameter) parameter).asNumber();
@@ -86,6 +142,42 @@ public abstract class NativeParameterType extends NonArrayParameterType {
         }
     }
 
+    /**
+     * Returns if the parameter has a double value. If it is a
+     * {@link PrimitiveDoubleParameter} the value isn't boxed.
+     * 
+     * @param parameter
+     *            the parameter.
+     * @return if the parameter has a double value.
+     */
+    public static boolean hasDoubleValue(final ParameterType parameter) {
+        if (parameter instanceof PrimitiveDoubleParameter) {
+            return ((PrimitiveDoubleParameter) parameter).hasDoubleValue();
+        } else {
+            return asDouble(parameter) != null;
+        }
+    }
+
+    /**
+     * Returns the double value of the parameter. If it is a
+     * {@link PrimitiveDoubleParameter} the value isn't boxed.
+     * 
+     * @param parameter
+     *            the parameter.
+     * @param defaultValue
+     *            the value returned if the parameter has no double value.
+     * @return the double value of the parameter or the default value.
+     */
+    public static double asDoubleValue(final ParameterType parameter, final double defaultValue) {
+        if (parameter instanceof PrimitiveDoubleParameter) {
+            final PrimitiveDoubleParameter primitive = (PrimitiveDoubleParameter) parameter;
+            return primitive.hasDoubleValue() ? primitive.asDoubleValue() : defaultValue;
+        } else {
+            final Double value = asDouble(parameter);
+            return value == null ? defaultValue : value;
+        }
+    }
+
     public static Boolean asBoolean(final ParameterType parameter) {
         if (parameter instanceof BooleanParameter) {
             return ((BooleanParameter) parameter).asBoolean();
@@ -18,6 +18,9 @@
 
 package de.xzise.jimp.parameter.types;
 
+import java.util.Collections;
+import java.util.Iterator;
+
 public abstract class NonArrayParameterType implements ParameterType {
 
     @Override
@@ -29,4 +32,22 @@ public abstract class NonArrayParameterType implements ParameterType {
     public ParameterType[] getArray() {
         return new ParameterType[] { this };
     }
+
+    @Override
+    public int size() {
+        return 1;
+    }
+
+    @Override
+    public ParameterType get(final int index) {
+        if (index != 0) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 1");
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<ParameterType> iterator() {
+        return Collections.<ParameterType> singleton(this).iterator();
+    }
 }
@@ -18,12 +18,36 @@
 
 package de.xzise.jimp.parameter.types;
 
-public interface ParameterType {
+/**
+ * A value of a parameter. Every value could be read as an array; if the value
+ * is no array it is the only element of its array. The elements could be read
+ * by {@link #size()}, {@link #get(int)} and the iterator without copying them,
+ * while {@link #getArray()} always returns a new array.
+ */
+public interface ParameterType extends Iterable<ParameterType> {
 
     boolean isArray();
 
     ParameterType[] getArray();
 
+    /**
+     * Returns the number of elements of this value.
+     * 
+     * @return the number of elements, which is one if this value is no array.
+     */
+    int size();
+
+    /**
+     * Returns an element of this value without copying the elements.
+     * 
+     * @param index
+     *            the index of the element.
+     * @return the element at the index.
+     * @throws IndexOutOfBoundsException
+     *             if the index is negative or not lower than {@link #size()}.
+     */
+    ParameterType get(final int index);
+
     String asString();
 
     String asParsableString(final String prefix);
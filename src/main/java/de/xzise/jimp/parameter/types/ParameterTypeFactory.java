@@ -19,9 +19,18 @@
 package de.xzise.jimp.parameter.types;
 
 import de.xzise.jimp.RuntimeOptions;
-import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 
 public interface ParameterTypeFactory {
 
-    ParameterType create(final Parameter[] parameters, final RuntimeOptions<?> runtime);
+    /**
+     * Creates a value from the parameters.
+     * 
+     * @param parameters
+     *            the parameters, which mustn't be stored by the factory.
+     * @param runtime
+     *            the runtime options.
+     * @return the created value or null if the parameters are invalid.
+     */
+    ParameterType create(final ParameterSlice parameters, final RuntimeOptions<?> runtime);
 }
@@ -0,0 +1,35 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.parameter.types;
+
+/**
+ * A parameter which could return its double value without boxing it.
+ */
+public interface PrimitiveDoubleParameter extends DoubleParameter {
+
+    /**
+     * Returns if there is a double value. If there is none,
+     * {@link #asDoubleValue()} returns an undefined value.
+     * 
+     * @return if there is a double value.
+     */
+    boolean hasDoubleValue();
+
+    double asDoubleValue();
+}
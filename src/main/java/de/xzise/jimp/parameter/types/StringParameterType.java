@@ -19,7 +19,7 @@
 package de.xzise.jimp.parameter.types;
 
 import de.xzise.jimp.RuntimeOptions;
-import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 
 public class StringParameterType extends NativeParameterType {
 
@@ -41,9 +41,9 @@ public class StringParameterType extends NativeParameterType {
     public static class StringParameterTypeFactory implements ParameterTypeFactory {
 
         @Override
-        public ParameterType create(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
-            if (parameters.length == 1) {
-                String value = parameters[0].getValue(runtime).asString();
+        public ParameterType create(final ParameterSlice parameters, final RuntimeOptions<?> runtime) {
+            if (parameters.size() == 1) {
+                String value = parameters.get(0).getValue(runtime).asString();
                 if (value != null) {
                     return new StringParameterType(value);
                 }
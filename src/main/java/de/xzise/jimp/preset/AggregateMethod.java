@@ -0,0 +1,144 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xzise.jimp.preset;
+
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.PureMethod;
+import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.NativeParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.util.DecimalFormatter;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Method which aggregates all numbers of the parameters in one pass. Array
+ * parameters are aggregated element by element without copying them. Values
+ * which are no numbers are ignored.
+ */
+public abstract class AggregateMethod extends DefaultNamedMethod<Variables> implements PureMethod {
+
+    private final MethodParser<?> parser;
+    private final boolean deviation;
+
+    /**
+     * The values of one aggregation. The sum is exact as long as all numbers
+     * are integers and the sum doesn't overflow.
+     */
+    protected static final class Aggregate {
+
+        private final boolean deviation;
+        private int count;
+        private long longSum;
+        private double sum;
+        private boolean exact = true;
+        private double mean;
+        private double squaredDeviations;
+
+        public Aggregate(final boolean deviation) {
+            this.deviation = deviation;
+        }
+
+        public void add(final ParameterType value) {
+            if (value != null && value.isArray()) {
+                final int length = value.size();
+                for (int i = 0; i < length; i++) {
+                    this.add(value.get(i));
+                }
+            } else if (NativeParameterType.hasLongValue(value)) {
+                final long l = NativeParameterType.asLongValue(value, 0);
+                if (this.exact) {
+                    final long result = this.longSum + l;
+                    // Overflow if both summands have another sign than the result
+                    if (((this.longSum ^ result) & (l ^ result)) < 0) {
+                        this.exact = false;
+                    } else {
+                        this.longSum = result;
+                    }
+                }
+                this.add((double) l);
+            } else if (NativeParameterType.hasDoubleValue(value)) {
+                this.exact = false;
+                this.add(NativeParameterType.asDoubleValue(value, 0));
+            }
+        }
+
+        private void add(final double value) {
+            this.count++;
+            this.sum += value;
+            if (this.deviation) {
+                final double delta = value - this.mean;
+                this.mean += delta / this.count;
+                this.squaredDeviations += delta * (value - this.mean);
+            }
+        }
+
+        public int getCount() {
+            return this.count;
+        }
+
+        public boolean isExact() {
+            return this.exact;
+        }
+
+        public long getLongSum() {
+            return this.longSum;
+        }
+
+        public double getSum() {
+            return this.exact ? this.longSum : this.sum;
+        }
+
+        /**
+         * Returns the population variance. It is only calculated if the method
+         * was created with the deviation enabled.
+         * 
+         * @return the variance or zero if there are no numbers.
+         */
+        public double getVariance() {
+            return this.count == 0 ? 0 : this.squaredDeviations / this.count;
+        }
+    }
+
+    /**
+     * Creates an aggregate method.
+     * 
+     * @param defaultName
+     *            the default name of the method.
+     * @param parser
+     *            the parser whose default format is used for decimal results.
+     * @param deviation
+     *            if the method needs the variance of the numbers.
+     */
+    protected AggregateMethod(final String defaultName, final MethodParser<? extends Variables> parser, final boolean deviation) {
+        super(defaultName, -1);
+        this.parser = parser;
+        this.deviation = deviation;
+    }
+
+    protected abstract ParameterType getResult(final Aggregate aggregate, final DecimalFormatter formatter);
+
+    @Override
+    public ParameterType call(final Parameter[] parameters, final RuntimeOptions<?> runtime) {
+        final Aggregate aggregate = new Aggregate(this.deviation);
+        for (Parameter parameter : parameters) {
+            aggregate.add(parameter.getValue(runtime));
+        }
+        return this.getResult(aggregate, this.parser.getDefaultFormatter());
+    }
+}
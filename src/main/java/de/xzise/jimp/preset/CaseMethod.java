@@ -18,7 +18,6 @@
 
 package de.xzise.jimp.preset;
 
-import java.util.Arrays;
 import java.util.Map;
 
 import de.xzise.MinecraftUtil;
@@ -26,6 +25,7 @@ import de.xzise.bukkit.util.callback.Callback;
 import de.xzise.collections.ArrayReferenceList;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.parameter.types.StringParameterType;
 import de.xzise.jimp.variables.Variables;
@@ -70,7 +70,7 @@ public abstract class CaseMethod<V extends Variables, C extends V> extends Defau
             caseEnum = CaseEnum.CASE_ENUMS.get(parameters[0].getValue(runtime).asString().toLowerCase());
         }
         if ((caseEnum == CaseEnum.CUSTOM && parameters.length == 3) || (caseEnum != CaseEnum.CUSTOM && caseEnum != null && parameters.length == 1)) {
-            Parameter[] preValues = Arrays.copyOf(parameters, preValueCount);
+            final ParameterSlice preValues = new ParameterSlice(parameters, 0, Math.min(this.preValueCount, parameters.length));
             final String result = this.preValueCall(preValues, runtime);
             switch (caseEnum) {
             case CUSTOM:
@@ -133,5 +133,5 @@ public abstract class CaseMethod<V extends Variables, C extends V> extends Defau
         return new String(chars);
     }
 
-    protected abstract String preValueCall(Parameter[] preValues, RuntimeOptions<C> runtime);
+    protected abstract String preValueCall(ParameterSlice preValues, RuntimeOptions<C> runtime);
 }
@@ -18,7 +18,6 @@
 
 package de.xzise.jimp.preset;
 
-import de.xzise.MinecraftUtil;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
 import de.xzise.jimp.parameter.types.DoubleParameterType;
@@ -49,7 +48,7 @@ public abstract class DoubleMethod<V extends Variables, C extends V> extends Def
                     break;
                 }
                 if (minDecimals != null && maxDecimals != null) {
-                    return new DoubleParameterType(value, MinecraftUtil.getFormatWithMinimumDecimals(minDecimals.intValue(), maxDecimals.intValue()));
+                    return new DoubleParameterType(value, minDecimals.intValue(), maxDecimals.intValue());
                 } else {
                     return null;
                 }
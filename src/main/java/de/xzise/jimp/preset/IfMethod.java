@@ -18,11 +18,10 @@
 
 package de.xzise.jimp.preset;
 
-import java.util.Arrays;
-
 import de.xzise.jimp.Method;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterSlice;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.variables.Variables;
 
@@ -49,9 +48,24 @@ public abstract class IfMethod<V extends Variables> implements Method<V> {
         default:
             return null;
         }
-        return this.match(Arrays.copyOf(parameters, this.preValueCount), runtime) != this.inverted ? match.getValue(runtime) : noMatch.getValue(runtime);
+        final Boolean matched = this.match(new ParameterSlice(parameters, 0, this.preValueCount), runtime);
+        if (matched == null) {
+            return null;
+        } else {
+            return matched.booleanValue() != this.inverted ? match.getValue(runtime) : noMatch.getValue(runtime);
+        }
     }
 
-    protected abstract Boolean match(final Parameter[] preValues, final RuntimeOptions<? extends V> runtime);
+    /**
+     * Checks if the pre values match.
+     * 
+     * @param preValues
+     *            the pre values, which are the first parameters of the call.
+     * @param runtime
+     *            the runtime options.
+     * @return if the pre values match, or null if they couldn't be compared
+     *         and the call has no result.
+     */
+    protected abstract Boolean match(final ParameterSlice preValues, final RuntimeOptions<? extends V> runtime);
 
 }
@@ -18,8 +18,9 @@
 
 package de.xzise.jimp.preset;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
+import de.xzise.jimp.PureMethod;
 import de.xzise.jimp.RuntimeOptions;
 import de.xzise.jimp.parameter.Parameter;
 import de.xzise.jimp.parameter.types.LongParameterType;
@@ -27,7 +28,13 @@ import de.xzise.jimp.parameter.types.NativeParameterType;
 import de.xzise.jimp.parameter.types.ParameterType;
 import de.xzise.jimp.variables.Variables;
 
-public abstract class MinMaxMethod extends DefaultNamedMethod<Variables> {
+/**
+ * Method which returns the n-th highest or lowest integer of the parameters.
+ * Array parameters are searched without copying them into a new array. The
+ * selection keeps the n best integers in a heap of primitive values, so it
+ * only needs <code>O(m log n)</code> comparisons for m integers.
+ */
+public abstract class MinMaxMethod extends DefaultNamedMethod<Variables> implements PureMethod {
 
     private final boolean first;
 
@@ -36,40 +43,121 @@ public abstract class MinMaxMethod extends DefaultNamedMethod<Variables> {
         this.first = first;
     }
 
+    /**
+     * Checks if the first value is ranked before the second value.
+     * 
+     * @param nHighLowest
+     *            the first value.
+     * @param tested
+     *            the second value.
+     * @return if the first value is strictly ranked before the second value.
+     */
     protected abstract boolean compare(final long nHighLowest, final long tested);
 
+    /**
+     * Heap of the best values found so far. The root is the value which is
+     * ranked last, so it is the n-th value when the heap is full.
+     */
+    private final class Selection {
+
+        private final int count;
+        private long[] heap;
+        private int size;
+
+        public Selection(final int count) {
+            this.count = count;
+            this.heap = new long[Math.min(count, 16)];
+        }
+
+        public void add(final ParameterType value) {
+            if (value != null && value.isArray()) {
+                final int length = value.size();
+                for (int i = 0; i < length; i++) {
+                    this.add(value.get(i));
+                }
+            } else if (NativeParameterType.hasLongValue(value)) {
+                this.add(NativeParameterType.asLongValue(value, 0));
+            }
+        }
+
+        private void add(final long value) {
+            if (this.size < this.count) {
+                if (this.size == this.heap.length) {
+                    this.heap = Arrays.copyOf(this.heap, (int) Math.min(this.count, this.heap.length * 2L));
+                }
+                this.heap[this.size] = value;
+                this.siftUp(this.size++);
+            } else if (MinMaxMethod.this.compare(value, this.heap[0])) {
+                this.heap[0] = value;
+                this.siftDown(0);
+            }
+        }
+
+        private void siftUp(int index) {
+            final long value = this.heap[index];
+            while (index > 0) {
+                final int parent = (index - 1) >>> 1;
+                if (MinMaxMethod.this.compare(this.heap[parent], value)) {
+                    this.heap[index] = this.heap[parent];
+                    index = parent;
+                } else {
+                    break;
+                }
+            }
+            this.heap[index] = value;
+        }
+
+        private void siftDown(int index) {
+            final long value = this.heap[index];
+            final int half = this.size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                final int right = child + 1;
+                if (right < this.size && MinMaxMethod.this.compare(this.heap[child], this.heap[right])) {
+                    child = right;
+                }
+                if (MinMaxMethod.this.compare(value, this.heap[child])) {
+                    this.heap[index] = this.heap[child];
+                    index = child;
+                } else {
+                    break;
+                }
+            }
+            this.heap[index] = value;
+        }
+
+        public boolean isComplete() {
+            return this.size == this.count;
+        }
+
+        public long getResult() {
+            return this.heap[0];
+        }
+    }
+
     @Override
     public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
         if (parameters.length > 0) {
-            final Long count = this.first ? 1 : NativeParameterType.asLong(parameters[0].getValue(runtime));
-            if (count != null) {
-                final int intCount = count.intValue();
-                ArrayList<Long> longs = new ArrayList<Long>(parameters.length);
-                for (int i = (this.first ? 0 : 1); i < parameters.length; i++) {
-                    Long longBuffer = NativeParameterType.asLong(parameters[i].getValue(runtime));
-                    if (longBuffer != null) {
-                        longs.add(longBuffer);
-                    }
-                }
-                if (longs.size() >= intCount) {
-                    final long[] highest = new long[intCount];
-                    int filled = 0;
-                    for (Long longBuffer : longs) {
-                        int i;
-                        for (i = 0; i < filled && this.compare(highest[i], longBuffer); i++) {
-                        }
-                        if (i < highest.length) {
-                            for (int j = Math.min(filled, highest.length - 1); i < j; j--) {
-                                highest[j] = highest[j - 1];
-                            }
-                            highest[i] = longBuffer;
-                            filled = Math.min(highest.length, filled + 1);
-                        }
-                    }
-                    return new LongParameterType(highest[intCount - 1]);
-                } else {
+            final long count;
+            if (this.first) {
+                count = 1;
+            } else {
+                final ParameterType countValue = parameters[0].getValue(runtime);
+                if (!NativeParameterType.hasLongValue(countValue)) {
                     return null;
                 }
+                count = NativeParameterType.asLongValue(countValue, 0);
+            }
+            // There can't be more values than an array could hold
+            if (count < 1 || count > Integer.MAX_VALUE) {
+                return null;
+            }
+            final Selection selection = new Selection((int) count);
+            for (int i = (this.first ? 0 : 1); i < parameters.length; i++) {
+                selection.add(parameters[i].getValue(runtime));
+            }
+            if (selection.isComplete()) {
+                return new LongParameterType(selection.getResult());
             } else {
                 return null;
             }
@@ -0,0 +1,136 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread safe cache which holds at most a maximum number of entries. If the
+ * cache is full the least recently used entry is evicted. A maximum size of
+ * zero disables the cache.
+ */
+public class BoundedCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries;
+    private int maximumSize;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public BoundedCache(final int maximumSize) {
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 3425787271834565247L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                if (this.size() > BoundedCache.this.maximumSize) {
+                    BoundedCache.this.evictionCount++;
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        };
+        this.setMaximumSize(maximumSize);
+    }
+
+    /**
+     * Returns the cached value.
+     * 
+     * @param key
+     *            the key of the value.
+     * @return the cached value or null if there is no value cached.
+     */
+    public synchronized V get(final K key) {
+        if (this.maximumSize > 0) {
+            final V value = this.entries.get(key);
+            if (value == null) {
+                this.missCount++;
+            } else {
+                this.hitCount++;
+            }
+            return value;
+        } else {
+            return null;
+        }
+    }
+
+    public synchronized void put(final K key, final V value) {
+        if (this.maximumSize > 0) {
+            this.entries.put(key, value);
+        }
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public synchronized int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * Sets the maximum number of entries and evicts the least recently used
+     * entries which doesn't fit anymore.
+     * 
+     * @param maximumSize
+     *            the new maximum number of entries. If it is zero the cache is
+     *            disabled.
+     */
+    public synchronized void setMaximumSize(final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size mustn't be negative.");
+        }
+        this.maximumSize = maximumSize;
+        final Iterator<K> iterator = this.entries.keySet().iterator();
+        while (this.entries.size() > maximumSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            this.evictionCount++;
+        }
+    }
+
+    public synchronized boolean isEnabled() {
+        return this.maximumSize > 0;
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    public synchronized void resetStatistics() {
+        this.hitCount = 0;
+        this.missCount = 0;
+        this.evictionCount = 0;
+    }
+}
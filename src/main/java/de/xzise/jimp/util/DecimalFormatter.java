@@ -0,0 +1,350 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+import de.xzise.MinecraftUtil;
+
+/**
+ * Formats numbers like a {@link DecimalFormat}, but could be used by multiple
+ * threads at once. Plain decimal patterns, optionally with grouping, a prefix
+ * and a suffix, are formatted directly. All other patterns are formatted by a
+ * copy of the format for each thread. The formatter copies the format when it
+ * is created, so changing the format afterwards doesn't change the formatter.
+ */
+public final class DecimalFormatter {
+
+    /** The highest number of integer digits DecimalFormat prints of a double. */
+    private static final int DOUBLE_INTEGER_DIGITS = 309;
+    /** The highest number of fraction digits DecimalFormat prints of a double. */
+    private static final int DOUBLE_FRACTION_DIGITS = 340;
+    /** The highest absolute value of a double which is still an exact long. */
+    private static final double EXACT_LONG_LIMIT = 1L << 53;
+    /** The highest number of decimals which have a cached formatter. */
+    private static final int CACHED_DECIMALS = 10;
+
+    private static final DecimalFormatter[][] DECIMALS = new DecimalFormatter[CACHED_DECIMALS + 1][CACHED_DECIMALS + 1];
+    private static final BoundedCache<String, DecimalFormatter> PATTERNS = new BoundedCache<String, DecimalFormatter>(256);
+    private static final BoundedCache<DecimalFormat, DecimalFormatter> FORMATS = new BoundedCache<DecimalFormat, DecimalFormatter>(64);
+
+    public static final DecimalFormatter MAX_TWO_DECIMALS = of(MinecraftUtil.MAX_TWO_DECIMALS_FORMAT);
+
+    private final DecimalFormat prototype;
+    private final ThreadLocal<DecimalFormat> formats;
+
+    /** If the format is simple enough to be formatted directly. */
+    private final boolean direct;
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final char zeroDigit;
+    private final char decimalSeparator;
+    private final char groupingSeparator;
+    private final int groupingSize;
+    private final int minimumIntegerDigits;
+    private final int minimumFractionDigits;
+    private final int maximumFractionDigits;
+    private final RoundingMode roundingMode;
+
+    public DecimalFormatter(final DecimalFormat format) {
+        this.prototype = (DecimalFormat) format.clone();
+        this.formats = new ThreadLocal<DecimalFormat>() {
+            @Override
+            protected DecimalFormat initialValue() {
+                return (DecimalFormat) DecimalFormatter.this.prototype.clone();
+            }
+        };
+        final DecimalFormatSymbols symbols = this.prototype.getDecimalFormatSymbols();
+        this.positivePrefix = this.prototype.getPositivePrefix();
+        this.positiveSuffix = this.prototype.getPositiveSuffix();
+        this.negativePrefix = this.prototype.getNegativePrefix();
+        this.negativeSuffix = this.prototype.getNegativeSuffix();
+        this.zeroDigit = symbols.getZeroDigit();
+        this.decimalSeparator = symbols.getDecimalSeparator();
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.groupingSize = this.prototype.isGroupingUsed() ? this.prototype.getGroupingSize() : 0;
+        this.minimumIntegerDigits = this.prototype.getMinimumIntegerDigits();
+        this.minimumFractionDigits = this.prototype.getMinimumFractionDigits();
+        this.maximumFractionDigits = this.prototype.getMaximumFractionDigits();
+        this.roundingMode = this.prototype.getRoundingMode();
+        this.direct = this.prototype.getMultiplier() == 1 && !this.prototype.isDecimalSeparatorAlwaysShown() && !this.prototype.isParseBigDecimal()
+                && this.prototype.toPattern().indexOf('E') < 0 && this.roundingMode != RoundingMode.UNNECESSARY
+                && this.minimumIntegerDigits > 0 && this.minimumIntegerDigits <= DOUBLE_INTEGER_DIGITS
+                && this.prototype.getMaximumIntegerDigits() >= DOUBLE_INTEGER_DIGITS && this.maximumFractionDigits <= DOUBLE_FRACTION_DIGITS;
+    }
+
+    /**
+     * Returns a formatter which behaves like the format. Formatters of equal
+     * formats are cached.
+     * 
+     * @param format
+     *            the format.
+     * @return the formatter of the format.
+     */
+    public static DecimalFormatter of(final DecimalFormat format) {
+        DecimalFormatter formatter = FORMATS.get(format);
+        if (formatter == null) {
+            formatter = new DecimalFormatter(format);
+            // The formatter keeps a private copy which could be used as a key
+            FORMATS.put(formatter.prototype, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * Returns a cached formatter for the pattern.
+     * 
+     * @param pattern
+     *            the pattern of a {@link DecimalFormat}.
+     * @return the formatter of the pattern.
+     * @throws IllegalArgumentException
+     *             if the pattern is invalid.
+     */
+    public static DecimalFormatter forPattern(final String pattern) {
+        DecimalFormatter formatter = PATTERNS.get(pattern);
+        if (formatter == null) {
+            formatter = new DecimalFormatter(new DecimalFormat(pattern));
+            PATTERNS.put(pattern, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * Returns a formatter like
+     * {@link MinecraftUtil#getFormatWithMinimumDecimals(int, int)}.
+     * Formatters for up to ten decimals are cached.
+     * 
+     * @param minimumDecimals
+     *            the minimum number of decimals.
+     * @param maximumDecimals
+     *            the maximum number of decimals.
+     * @return the formatter.
+     */
+    public static DecimalFormatter forDecimals(final int minimumDecimals, final int maximumDecimals) {
+        if (minimumDecimals >= 0 && maximumDecimals >= 0 && minimumDecimals <= CACHED_DECIMALS && maximumDecimals <= CACHED_DECIMALS) {
+            // Formatters are immutable, so it doesn't matter if two threads create one
+            DecimalFormatter formatter = DECIMALS[minimumDecimals][maximumDecimals];
+            if (formatter == null) {
+                formatter = new DecimalFormatter(MinecraftUtil.getFormatWithMinimumDecimals(minimumDecimals, maximumDecimals));
+                DECIMALS[minimumDecimals][maximumDecimals] = formatter;
+            }
+            return formatter;
+        } else {
+            return new DecimalFormatter(MinecraftUtil.getFormatWithMinimumDecimals(minimumDecimals, maximumDecimals));
+        }
+    }
+
+    /**
+     * Returns a copy of the format used by this formatter.
+     * 
+     * @return a copy of the format.
+     */
+    public DecimalFormat getFormat() {
+        return (DecimalFormat) this.prototype.clone();
+    }
+
+    public String format(final long number) {
+        if (this.direct) {
+            final String digits = Long.toString(number);
+            return this.build(number < 0, number < 0 ? digits.substring(1) : digits, "");
+        } else {
+            return this.formats.get().format(number);
+        }
+    }
+
+    public String format(final double number) {
+        if (this.direct && !Double.isNaN(number) && !Double.isInfinite(number)) {
+            final boolean negative = number < 0 || (number == 0 && 1 / number < 0);
+            final double absolute = Math.abs(number);
+            if (absolute < EXACT_LONG_LIMIT && absolute == Math.rint(absolute)) {
+                return this.build(negative, Long.toString((long) absolute), "");
+            }
+            final String text = Double.toString(absolute);
+            if (text.indexOf('E') < 0 && this.roundingMode == RoundingMode.HALF_EVEN) {
+                return this.formatPlain(negative, text, absolute);
+            }
+            BigDecimal decimal = new BigDecimal(text).stripTrailingZeros();
+            if (decimal.scale() > this.maximumFractionDigits) {
+                decimal = this.round(decimal, absolute, negative);
+                decimal = decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+            }
+            final String plain = decimal.toPlainString();
+            final int point = plain.indexOf('.');
+            if (point < 0) {
+                return this.build(negative, plain, "");
+            } else {
+                return this.build(negative, plain.substring(0, point), plain.substring(point + 1));
+            }
+        } else {
+            return this.formats.get().format(number);
+        }
+    }
+
+    public String format(final Number number) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return this.format(number.longValue());
+        } else if (number instanceof Double || number instanceof Float) {
+            return this.format(number.doubleValue());
+        } else {
+            return this.formats.get().format(number);
+        }
+    }
+
+    /**
+     * Rounds half even directly on the digits of a double without exponent.
+     * 
+     * @param negative
+     *            if the value is negative.
+     * @param text
+     *            the shortest decimal representation of the absolute value,
+     *            which contains a point but no exponent.
+     * @param value
+     *            the absolute value.
+     * @return the formatted value.
+     */
+    private String formatPlain(final boolean negative, final String text, final double value) {
+        final int point = text.indexOf('.');
+        int fractionEnd = text.length();
+        while (fractionEnd > point + 1 && text.charAt(fractionEnd - 1) == '0') {
+            fractionEnd--;
+        }
+        final int cut = point + 1 + this.maximumFractionDigits;
+        if (fractionEnd <= cut) {
+            return this.build(negative, text.substring(0, point), text.substring(point + 1, fractionEnd));
+        }
+        final char next = text.charAt(cut);
+        final boolean up;
+        if (next != '5') {
+            up = next > '5';
+        } else if (fractionEnd > cut + 1) {
+            up = true;
+        } else {
+            // Exactly between two results, so the binary value decides
+            final int exact = new BigDecimal(value).compareTo(new BigDecimal(text));
+            if (exact == 0) {
+                final char previous = text.charAt(cut - 1 == point ? point - 1 : cut - 1);
+                up = (previous - '0') % 2 == 1;
+            } else {
+                up = exact > 0;
+            }
+        }
+        final char[] digits = new char[cut];
+        text.getChars(0, cut, digits, 0);
+        boolean carry = up;
+        for (int i = cut - 1; carry && i >= 0; i--) {
+            if (digits[i] == '.') {
+                continue;
+            } else if (digits[i] == '9') {
+                digits[i] = '0';
+            } else {
+                digits[i]++;
+                carry = false;
+            }
+        }
+        int end = cut;
+        while (end > point + 1 && digits[end - 1] == '0') {
+            end--;
+        }
+        final String integer = new String(digits, 0, point);
+        return this.build(negative, carry ? "1" + integer : integer, new String(digits, point + 1, Math.max(0, end - point - 1)));
+    }
+
+    /**
+     * Rounds the shortest decimal representation of a double like
+     * DecimalFormat. If the decimal lies exactly between the two possible
+     * results the exact binary value decides the direction.
+     * 
+     * @param decimal
+     *            the shortest decimal representation of the value.
+     * @param value
+     *            the absolute value.
+     * @param negative
+     *            if the original value was negative.
+     * @return the rounded decimal.
+     */
+    private BigDecimal round(final BigDecimal decimal, final double value, final boolean negative) {
+        if (decimal.scale() - decimal.precision() > this.maximumFractionDigits) {
+            // DecimalFormat ignores digits which are after the first hidden digit
+            return BigDecimal.ZERO;
+        }
+        RoundingMode mode = this.roundingMode;
+        // The decimal is the absolute value, so ceiling and floor are swapped for negative values
+        if (negative && mode == RoundingMode.CEILING) {
+            mode = RoundingMode.FLOOR;
+        } else if (negative && mode == RoundingMode.FLOOR) {
+            mode = RoundingMode.CEILING;
+        }
+        if ((mode == RoundingMode.HALF_EVEN || mode == RoundingMode.HALF_UP || mode == RoundingMode.HALF_DOWN) && decimal.scale() == this.maximumFractionDigits + 1
+                && decimal.unscaledValue().mod(BigInteger.TEN).intValue() == 5) {
+            final int exact = new BigDecimal(value).compareTo(decimal);
+            if (exact > 0) {
+                mode = RoundingMode.UP;
+            } else if (exact < 0) {
+                mode = RoundingMode.DOWN;
+            }
+        }
+        return decimal.setScale(this.maximumFractionDigits, mode);
+    }
+
+    /**
+     * Builds the formatted number.
+     * 
+     * @param negative
+     *            if the number is negative.
+     * @param integer
+     *            the ASCII digits of the integer part without a sign.
+     * @param fraction
+     *            the ASCII digits of the fraction part without trailing zeros.
+     * @return the formatted number.
+     */
+    private String build(final boolean negative, String integer, final String fraction) {
+        if ("0".equals(integer)) {
+            integer = "";
+        }
+        final int integerDigits = Math.max(integer.length(), this.minimumIntegerDigits);
+        final int fractionDigits = Math.max(fraction.length(), this.minimumFractionDigits);
+        final StringBuilder builder = new StringBuilder(integerDigits * 2 + fractionDigits + 8);
+        builder.append(negative ? this.negativePrefix : this.positivePrefix);
+        for (int i = integerDigits; i > 0; i--) {
+            final int index = integer.length() - i;
+            builder.append(index < 0 ? this.zeroDigit : this.toDigit(integer.charAt(index)));
+            if (this.groupingSize > 0 && i > 1 && (i - 1) % this.groupingSize == 0) {
+                builder.append(this.groupingSeparator);
+            }
+        }
+        if (fractionDigits > 0) {
+            builder.append(this.decimalSeparator);
+            for (int i = 0; i < fractionDigits; i++) {
+                builder.append(i < fraction.length() ? this.toDigit(fraction.charAt(i)) : this.zeroDigit);
+            }
+        }
+        builder.append(negative ? this.negativeSuffix : this.positiveSuffix);
+        return builder.toString();
+    }
+
+    private char toDigit(final char asciiDigit) {
+        return (char) (this.zeroDigit + (asciiDigit - '0'));
+    }
+}
@@ -0,0 +1,73 @@
+package de.xzise.jimp;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.parameter.FoldedParameter;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.parameter.types.StringParameterType;
+import de.xzise.jimp.variables.Variables;
+
+public class ConstantFolderTest extends ParserTestCase {
+
+    private static final String[] LINES = {
+        "add(1, 2)",
+        "add(1,2)",
+        "sp()",
+        "max(3,9)",
+        "nmax(2,3,9,4)",
+        "min(3,9) and more",
+        "ifequals(a, a, x, y)",
+        "ifequals(a,a,x,y)",
+        "ifnotequals(a,a,x,y)",
+        "ifequals(a,b,x)",
+        "caseequals(b,a,one,b,two,default)",
+        "subtract(add(1,2),3)",
+        "round(add(1.4,2))",
+        "array(a,b,c)",
+        "unknown(1,2)",
+        "ifequals(a,a,add(1,2),x) sp()",
+        "null()",
+    };
+
+    private String execute(final Compiled compiled) {
+        try {
+            return this.parser.execute(compiled, VARIABLES);
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    public void testSameOutput() {
+        for (String line : LINES) {
+            final Compiled compiled = MethodParser.compile(line);
+            final Compiled optimized = this.parser.optimize(compiled);
+            final String expected = this.execute(compiled);
+            assertEquals(line, expected, this.execute(optimized));
+        }
+    }
+
+    public void testFoldsConstantCalls() {
+        final Parameter[] entries = this.parser.optimize(MethodParser.compile("sp() add(1,2) random(a,b)")).getEntries();
+        assertTrue(entries[0] instanceof FoldedParameter);
+        assertTrue(entries[1] instanceof FoldedParameter);
+        assertFalse(entries[2] instanceof FoldedParameter);
+    }
+
+    public void testReregistrationInvalidatesFolding() {
+        final Compiled optimized = this.parser.optimize(MethodParser.compile("sp()"));
+        assertEquals("", this.parser.execute(optimized, VARIABLES));
+        this.parser.registerMethod("sp", new Method<Variables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+                return new StringParameterType("changed");
+            }
+        }, 0);
+        assertEquals("changed", this.parser.execute(optimized, VARIABLES));
+    }
+
+    public void testOtherParserIgnoresFolding() {
+        final Compiled optimized = this.parser.optimize(MethodParser.compile("sp()"));
+        final MethodParser<Variables> other = createParser();
+        assertEquals(other.execute(MethodParser.compile("sp()"), VARIABLES), other.execute(optimized, VARIABLES));
+    }
+}
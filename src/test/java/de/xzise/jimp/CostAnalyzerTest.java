@@ -0,0 +1,109 @@
+package de.xzise.jimp;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.methods.AliasMethod;
+
+public class CostAnalyzerTest extends ParserTestCase {
+
+    @Override
+    protected void setUp() {
+        super.setUp();
+        AliasMethod.create("Hi $0;", 1, "greet", this.parser).register();
+    }
+
+    private TemplateCost analyze(final String line) {
+        return this.parser.analyze(MethodParser.compile(line));
+    }
+
+    public void testCost() {
+        final TemplateCost plain = this.analyze("plain text");
+        assertEquals(2, plain.getNodeCount());
+        assertEquals(0, plain.getCallCount());
+        assertEquals(0, plain.getMaximumDepth());
+
+        final TemplateCost nested = this.analyze("a add(1,add(2,max(3,4)))");
+        assertEquals(8, nested.getNodeCount());
+        assertEquals(3, nested.getCallCount());
+        assertEquals(3, nested.getMaximumDepth());
+        assertEquals(0, nested.getDynamicCallCount());
+        // add accepts two or more parameters
+        assertEquals(2, nested.getMaximumFanOut());
+        assertEquals(0, this.analyze("ifequals(a,b,c,d) ifequals(a,b,c)").getMaximumFanOut());
+
+        final TemplateCost dynamic = this.analyze("call(a,b) print(a,b) greet(x) random(a,b,c) unknown(a)");
+        assertEquals(3, dynamic.getDynamicCallCount());
+        assertEquals(5, dynamic.getCallCount());
+        assertEquals(1, dynamic.getMaximumDepth());
+        assertEquals(3, dynamic.getMaximumFanOut());
+
+        assertEquals(6, this.analyze("print(1,2,3,4,5,6) ifequals(a,b,c,d)").getMaximumFanOut());
+    }
+
+    public void testFoldedCalls() {
+        final TemplateCost cost = this.parser.analyze(this.parser.optimize(MethodParser.compile("add(1,add(2,3))")));
+        assertEquals(1, cost.getNodeCount());
+        assertEquals(0, cost.getCallCount());
+    }
+
+    public void testAdmission() throws TemplateRejectedException {
+        final String line = "add(1,add(2,add(3,random(a,b))))";
+        final Compiled compiled = this.parser.admit(line);
+        assertNotNull(compiled);
+
+        this.parser.setAdmissionLimits(AdmissionLimits.UNLIMITED.withMaximumDepth(3));
+        try {
+            this.parser.admit(line);
+            fail("The depth is exceeded.");
+        } catch (TemplateRejectedException e) {
+            assertEquals(TemplateRejectedException.Limit.DEPTH, e.getLimit());
+            assertEquals(4, e.getCost().getMaximumDepth());
+        }
+
+        this.parser.setAdmissionLimits(AdmissionLimits.UNLIMITED.withMaximumDynamicCalls(0));
+        try {
+            this.parser.admit(line);
+            fail("A dynamic method is called.");
+        } catch (TemplateRejectedException e) {
+            assertEquals(TemplateRejectedException.Limit.DYNAMIC_CALLS, e.getLimit());
+        }
+
+        this.parser.setAdmissionLimits(AdmissionLimits.UNLIMITED.withMaximumNodes(5).withMaximumFanOut(2));
+        try {
+            this.parser.admit("a b c d e f");
+            fail("There are too many nodes.");
+        } catch (TemplateRejectedException e) {
+            assertEquals(TemplateRejectedException.Limit.NODES, e.getLimit());
+        }
+        try {
+            this.parser.admit("print(a,b,c)");
+            fail("The fan-out is exceeded.");
+        } catch (TemplateRejectedException e) {
+            assertEquals(TemplateRejectedException.Limit.FAN_OUT, e.getLimit());
+        }
+        assertNotNull(this.parser.admit("print(a,b)"));
+    }
+
+    public void testAdmissionBeforeFolding() {
+        // Folding would replace the pure calls with a single value
+        final String line = "add(1,2,3,4,5,add(1,add(2,add(3,4))))";
+        assertEquals(0, this.parser.analyze(this.parser.optimize(MethodParser.compile(line))).getMaximumDepth());
+
+        this.parser.setAdmissionLimits(AdmissionLimits.UNLIMITED.withMaximumDepth(3));
+        try {
+            this.parser.admit(line);
+            fail("The depth is exceeded.");
+        } catch (TemplateRejectedException e) {
+            assertEquals(TemplateRejectedException.Limit.DEPTH, e.getLimit());
+            assertEquals(4, e.getCost().getMaximumDepth());
+        }
+
+        this.parser.setAdmissionLimits(AdmissionLimits.UNLIMITED.withMaximumFanOut(5));
+        try {
+            this.parser.admit(line);
+            fail("The fan-out is exceeded.");
+        } catch (TemplateRejectedException e) {
+            assertEquals(TemplateRejectedException.Limit.FAN_OUT, e.getLimit());
+            assertEquals(6, e.getCost().getMaximumFanOut());
+        }
+    }
+}
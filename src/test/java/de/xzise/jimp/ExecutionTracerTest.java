@@ -0,0 +1,117 @@
+package de.xzise.jimp;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.NativeParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+public class ExecutionTracerTest extends ParserTestCase {
+
+    private static ExecutionTracer.Node getChild(final ExecutionTracer.Node node, final String name, final int paramCount) {
+        for (ExecutionTracer.Node child : node.getChildren()) {
+            if (child.getName().equals(name) && child.getParamCount() == paramCount) {
+                return child;
+            }
+        }
+        fail("No call of " + name + " with " + paramCount + " parameters below " + node.getName());
+        return null;
+    }
+
+    public void testCallTree() throws IOException {
+        final ExecutionTracer tracer = new ExecutionTracer(1);
+        this.parser.setTracer(tracer);
+        final Compiled compiled = MethodParser.compile("add(1,add(2,3)) text max(3,9)");
+        assertEquals("6text9", this.parser.execute(compiled, VARIABLES));
+        assertEquals("6text9", this.parser.link(compiled).execute(VARIABLES));
+
+        final ExecutionTracer.Node root = tracer.getCallTree();
+        assertEquals(ExecutionTracer.ROOT_NAME, root.getName());
+        assertEquals(2, root.getCount());
+        assertEquals(2, root.getChildren().size());
+
+        final ExecutionTracer.Node add = getChild(root, "add", 2);
+        assertEquals(2, add.getCount());
+        assertEquals(1, add.getDepth());
+        assertEquals(2, add.getResultLength());
+        final ExecutionTracer.Node inner = getChild(add, "add", 2);
+        assertEquals(2, inner.getCount());
+        assertEquals(2, inner.getDepth());
+        assertTrue(inner.getTotalTime(TimeUnit.NANOSECONDS) <= add.getTotalTime(TimeUnit.NANOSECONDS));
+        assertEquals(add.getTotalTime(TimeUnit.NANOSECONDS) - inner.getTotalTime(TimeUnit.NANOSECONDS), add.getSelfTime(TimeUnit.NANOSECONDS));
+        assertEquals(2, getChild(root, "max", 2).getCount());
+
+        final StringBuilder collapsed = new StringBuilder();
+        tracer.writeCollapsed(collapsed, TimeUnit.NANOSECONDS);
+        assertTrue(collapsed.toString(), collapsed.toString().contains("execution;add/2;add/2 "));
+        for (String line : collapsed.toString().split("\n")) {
+            assertTrue(line, line.matches("execution(;\\w+/\\d+)* \\d+"));
+        }
+
+        tracer.reset();
+        assertEquals(0, tracer.getCallTree().getCount());
+        assertTrue(tracer.getCallTree().getChildren().isEmpty());
+    }
+
+    public void testResultWithoutText() {
+        this.parser.registerMethod("nothing", new Method<Variables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+                return NativeParameterType.NULL_PARAMETER_TYPE;
+            }
+        }, 0);
+        final Compiled compiled = MethodParser.compile("a nothing() b");
+        final String expected = this.parser.execute(compiled, VARIABLES);
+        final ExecutionTracer tracer = new ExecutionTracer(1);
+        this.parser.setTracer(tracer);
+        assertEquals(expected, this.parser.execute(compiled, VARIABLES));
+        final ExecutionTracer.Node nothing = getChild(tracer.getCallTree(), "nothing", 0);
+        assertEquals(1, nothing.getCount());
+        assertEquals(0, nothing.getResultLength());
+    }
+
+    public void testSampling() {
+        final ExecutionTracer tracer = new ExecutionTracer(4);
+        this.parser.setTracer(tracer);
+        final Compiled compiled = MethodParser.compile("add(1,2)");
+        for (int i = 0; i < 20; i++) {
+            this.parser.execute(compiled, VARIABLES);
+        }
+        assertEquals(5, tracer.getCallTree().getCount());
+        assertEquals(5, getChild(tracer.getCallTree(), "add", 2).getCount());
+
+        this.parser.setTracer(null);
+        this.parser.execute(compiled, VARIABLES);
+        assertFalse(new RuntimeOptions<Variables>(VARIABLES, this.parser, null).isTraced());
+    }
+
+    public void testSamplingOfReusedRuntime() {
+        final ExecutionTracer tracer = new ExecutionTracer(4);
+        this.parser.setTracer(tracer);
+        final Compiled compiled = MethodParser.compile("add(1,2)");
+        final RuntimeOptions<Variables> runtime = new RuntimeOptions<Variables>(VARIABLES, this.parser, null);
+        for (int i = 0; i < 20; i++) {
+            assertEquals("3", compiled.execute(runtime));
+        }
+        assertEquals(5, tracer.getCallTree().getCount());
+        assertEquals(5, getChild(tracer.getCallTree(), "add", 2).getCount());
+    }
+
+    public void testBudgetExceeded() {
+        final ExecutionTracer tracer = new ExecutionTracer(1);
+        this.parser.setTracer(tracer);
+        final Compiled compiled = MethodParser.compile("add(1,add(2,add(3,4)))");
+        try {
+            this.parser.execute(compiled, VARIABLES, ExecutionBudget.UNLIMITED.withMaximumDepth(2));
+            fail("The depth is exceeded.");
+        } catch (BudgetExceededException e) {
+            assertEquals(BudgetExceededException.Limit.DEPTH, e.getLimit());
+        }
+        final ExecutionTracer.Node root = tracer.getCallTree();
+        assertEquals(1, root.getCount());
+        assertEquals(1, getChild(getChild(root, "add", 2), "add", 2).getCount());
+    }
+}
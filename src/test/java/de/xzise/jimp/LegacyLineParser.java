@@ -0,0 +1,117 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterizedParameter;
+import de.xzise.jimp.util.ArrayUtil;
+import de.xzise.jimp.util.FillingArray;
+import de.xzise.jimp.util.Util;
+
+/**
+ * The parser which was used before {@link LineLexer}. It is only kept as the
+ * reference for the parity tests.
+ */
+final class LegacyLineParser {
+
+    private LegacyLineParser() {
+    }
+
+    static Parameter[] parse(final String line) {
+        return parseLine(line, new char[] { ',' }, new char[] { ' ' }, '"', '\\', '(', ')', null, true);
+    }
+
+    static Parameter[] parseLine(final String line, final char[] paramDelimiter, final char[] delimiter, final char quote, final char escape, final Character bracketStart, final Character bracketEnd, final Character commentary, final boolean trimQuotes) {
+        final List<Parameter> values = new ArrayList<Parameter>();
+        LegacyLineParser.getParameters(values, line, 0, paramDelimiter, delimiter, quote, escape, bracketStart, bracketEnd, commentary, trimQuotes);
+        return values.toArray(new Parameter[0]);
+    }
+
+    private static int getParameters(final List<Parameter> parameters, final String line, final int start, final char[] paramDelimiter, final char[] delimiter, final char quote, final char escape, final Character bracketStart, final Character bracketEnd, final Character commentary, final boolean trimQuotes) {
+        boolean quoted = false;
+        boolean quotedEntry = false;
+        boolean escaped = false;
+        int bracketLevel = 0;
+        int quotedWordLength = -1;
+        int quotedLastStart = -1;
+        final FillingArray<Character> word = new FillingArray<Character>(new Character[line.length()]);
+        int entryStart = 0;
+        for (int i = start; i <= line.length(); i++) {
+            final char c;
+            if (i < line.length()) {
+                c = line.charAt(i);
+            } else {
+                c = delimiter[0];
+            }
+            if (escaped) {
+                word.add(c);
+                escaped = false;
+            } else {
+                if (c == quote && bracketLevel <= 0) {
+                    if (trimQuotes) {
+                        if (quoted) {
+                            quotedWordLength = word.getFilledLength();
+                        } else if (quotedLastStart < 0) {
+                            quotedLastStart = word.getFilledLength();
+                        }
+                    }
+                    quoted = !quoted;
+                    if (quoted) {
+                        quotedEntry = true;
+                    }
+                } else if (c == escape) {
+                    escaped = true;
+                } else if ((ArrayUtil.indexOf(delimiter, c) >= 0 || Util.equals(bracketStart, c) || Util.equals(bracketEnd, c) || Util.equals(commentary, c)) && !quoted) {
+                    if (word.getFilledLength() > 0) {
+                        final int first = quotedLastStart < 0 ? 0 : quotedLastStart;
+                        final int last = quotedWordLength < 0 ? word.getFilledLength() : (quotedWordLength - first);
+                        final String string = ArrayUtil.getString(word.getFilledArray(), first, last);
+                        if (Util.equals(bracketStart, c)) {
+                            final List<Parameter> subParameters = new ArrayList<Parameter>();
+                            i = getParameters(subParameters, line, i + 1, paramDelimiter, paramDelimiter, quote, escape, bracketStart, bracketEnd, commentary, trimQuotes);
+                            final String full = line.substring(entryStart, i);
+                            parameters.add(new ParameterizedParameter(string, full, quotedEntry, subParameters.toArray(new Parameter[0])));
+                        } else {
+                            final String full = line.substring(entryStart, i);
+                            parameters.add(new Parameter(string, full, quotedEntry));
+                        }
+                        entryStart = i;
+                        word.clearFill();
+                        quotedWordLength = -1;
+                        quotedEntry = false;
+                    }
+                    if (Util.equals(commentary, c)) {
+                        return line.length();
+                    } else if (Util.equals(bracketEnd, c)) {
+                        return i;
+                    }
+                    quotedLastStart = -1;
+                } else if (Util.equals(commentary, c) && !quoted) {
+                    break;
+                } else {
+                    word.add(c);
+                }
+            }
+        }
+        return line.length();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of Java Inline Method Parser.
+ * 
+ * Java Inline Method Parser is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Java Inline Method Parser is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Java Inline Method Parser.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.xzise.jimp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.ParameterizedParameter;
+
+/**
+ * Checks that {@link LineLexer} creates the same trees as the previous parser.
+ */
+public class LineLexerTest extends TestCase {
+
+    private static final LineLexer LEXER = new LineLexer(new char[] { ',' }, new char[] { ' ' }, '"', '\\', '(', ')', null, true);
+    private static final LineLexer COMMENT_LEXER = new LineLexer(new char[] { ',' }, new char[] { ' ' }, '"', '\\', '(', ')', '#', false);
+
+    private static final String[] LINES = {
+        "",
+        " ",
+        "foo",
+        "foo bar  baz",
+        "foo()",
+        "foo(a, b, c)",
+        "foo(a,b , c) bar(d)",
+        "outer(inner(deep(deeper(x, y)), z), w)",
+        "foo(bar(\"quoted, text\"), baz)",
+        "\"hello world\" next",
+        "a\"b\"c",
+        "\"a\"\"b\"",
+        "\"\" x",
+        "escaped\\ space",
+        "escaped\\(bracket)",
+        "ends with escape\\",
+        "unclosed(a, b",
+        "unclosed\"quote",
+        "close) after",
+        "( leading bracket )",
+        "name (space) before bracket",
+        "call(print, \"$0;\", add(1, 2))",
+    };
+
+    private static void assertSameTree(final String message, final Parameter[] expected, final Parameter[] actual) {
+        assertEquals(message + ": count", expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertSameParameter(message + "[" + i + "]", expected[i], actual[i]);
+        }
+    }
+
+    private static void assertSameParameter(final String message, final Parameter expected, final Parameter actual) {
+        assertEquals(message + ": class", expected.getClass(), actual.getClass());
+        assertEquals(message + ": text", expected.getText(), actual.getText());
+        assertEquals(message + ": full text", expected.getFullText(), actual.getFullText());
+        assertEquals(message + ": quoted", expected.quoted, actual.quoted);
+        if (expected instanceof ParameterizedParameter) {
+            final ParameterizedParameter expectedMethod = (ParameterizedParameter) expected;
+            final ParameterizedParameter actualMethod = (ParameterizedParameter) actual;
+            assertEquals(message + ": name", expectedMethod.methodName, actualMethod.methodName);
+            assertEquals(message + ": parameter count", expectedMethod.getParameterCount(), actualMethod.getParameterCount());
+            for (int i = 0; i < expectedMethod.getParameterCount(); i++) {
+                assertSameParameter(message + "." + expectedMethod.methodName + "[" + i + "]", expectedMethod.getParameter(i), actualMethod.getParameter(i));
+            }
+        }
+    }
+
+    private static void assertParity(final String line) {
+        Parameter[] expected = null;
+        RuntimeException expectedException = null;
+        try {
+            expected = LegacyLineParser.parse(line);
+        } catch (RuntimeException e) {
+            expectedException = e;
+        }
+        Parameter[] actual = null;
+        try {
+            actual = LEXER.parse(line);
+        } catch (RuntimeException e) {
+            if (expectedException == null) {
+                throw e;
+            }
+            assertEquals("'" + line + "': exception", expectedException.getClass(), e.getClass());
+            return;
+        }
+        if (expectedException != null) {
+            fail("'" + line + "': expected " + expectedException);
+        }
+        assertSameTree("'" + line + "'", expected, actual);
+    }
+
+    public void testFixedLines() {
+        for (String line : LINES) {
+            assertParity(line);
+        }
+    }
+
+    public void testCommentary() {
+        for (String line : new String[] { "foo # comment", "foo(a, # b)", "\"#\" x#y" }) {
+            assertSameTree(line, LegacyLineParser.parseLine(line, new char[] { ',' }, new char[] { ' ' }, '"', '\\', '(', ')', '#', false), COMMENT_LEXER.parse(line));
+        }
+    }
+
+    public void testRandomLines() {
+        final char[] alphabet = "ab1 ,()\"\\".toCharArray();
+        final Random random = new Random(4242);
+        for (int i = 0; i < 20000; i++) {
+            final char[] line = new char[random.nextInt(24)];
+            for (int j = 0; j < line.length; j++) {
+                line[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            assertParity(new String(line));
+        }
+    }
+
+    public void testDeepNesting() {
+        final StringBuilder builder = new StringBuilder();
+        final int depth = 200;
+        for (int i = 0; i < depth; i++) {
+            builder.append("f").append(i).append("(a,");
+        }
+        for (int i = 0; i < depth; i++) {
+            builder.append(")");
+        }
+        final String line = builder.toString();
+        assertParity(line);
+
+        Parameter parameter = LEXER.parse(line)[0];
+        for (int i = 0; i < depth; i++) {
+            final ParameterizedParameter method = (ParameterizedParameter) parameter;
+            assertEquals("f" + i, method.methodName);
+            parameter = method.getParameter(method.getParameterCount() - 1);
+        }
+    }
+}
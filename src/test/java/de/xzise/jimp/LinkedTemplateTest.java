@@ -0,0 +1,63 @@
+package de.xzise.jimp;
+
+import java.io.IOException;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.parameter.types.StringParameterType;
+import de.xzise.jimp.variables.Variables;
+
+public class LinkedTemplateTest extends ParserTestCase {
+
+    private static final String[] LINES = {
+        "",
+        "plain text only",
+        "sp()",
+        "null()",
+        "unknown(a,b) text",
+        "Hello \"quoted world\" add(1,2) sp() max(3,9)",
+        "ifequals(a,a,yes,no) ifequals(a,b,yes,no)",
+        "array(a,b,c) print(x,y)",
+        "returnvar()",
+    };
+
+    public void testSameOutput() throws IOException, BudgetExceededException {
+        for (String line : LINES) {
+            final Compiled compiled = MethodParser.compile(line);
+            final String expected = this.parser.execute(compiled, VARIABLES);
+            assertEquals(line, expected, this.parser.link(compiled).execute(VARIABLES));
+            assertEquals(line, expected, this.parser.link(this.parser.optimize(compiled)).execute(VARIABLES));
+            final StringBuilder builder = new StringBuilder();
+            this.parser.link(compiled).executeTo(builder, VARIABLES);
+            assertEquals(line, expected, builder.toString());
+        }
+    }
+
+    public void testRelinkedAfterRegistration() {
+        final Compiled compiled = MethodParser.compile("value() text");
+        final LinkedTemplate<Variables> linked = this.parser.link(compiled);
+        final String unresolved = linked.execute(VARIABLES);
+        this.parser.registerMethod("value", new Method<Variables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+                return new StringParameterType("resolved");
+            }
+        }, 0);
+        final String resolved = linked.execute(VARIABLES);
+        assertFalse(unresolved.equals(resolved));
+        assertEquals(this.parser.execute(compiled, VARIABLES), resolved);
+    }
+
+    public void testCompiledSharedWithOtherParser() {
+        final MethodParser<Variables> other = createParser();
+        this.parser.registerMethod("value", constant("first"), 0);
+        other.registerMethod("value", constant("second"), 0);
+        final Compiled compiled = MethodParser.compile("value() text");
+        final LinkedTemplate<Variables> linked = this.parser.link(compiled);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("firsttext", linked.execute(VARIABLES));
+            assertEquals("secondtext", other.execute(compiled, VARIABLES));
+        }
+    }
+}
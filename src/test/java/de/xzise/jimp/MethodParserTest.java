@@ -0,0 +1,401 @@
+package de.xzise.jimp;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.methods.AliasMethod;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.parameter.types.StringParameterType;
+import de.xzise.jimp.variables.Variables;
+
+public class MethodParserTest extends ParserTestCase {
+
+    public void testReregisteredMethodIsUsed() {
+        final MethodParser<Variables> parser = createParser();
+        final Compiled compiled = MethodParser.compile("value()");
+        final String unresolved = parser.execute(compiled, VARIABLES);
+        assertFalse("first".equals(unresolved));
+        parser.registerMethod("value", constant("first"), 0);
+        assertEquals("first", parser.execute(compiled, VARIABLES));
+        parser.registerMethod("value", constant("second"), 0);
+        assertEquals("second", parser.execute(compiled, VARIABLES));
+        parser.unregisterMethod("value", 0);
+        assertEquals(unresolved, parser.execute(compiled, VARIABLES));
+        parser.registerMethod("value", constant("third"), 0);
+        parser.clearMethods();
+        assertEquals(unresolved, parser.execute(compiled, VARIABLES));
+    }
+
+    public void testCompiledSharedByParsers() {
+        final MethodParser<Variables> first = createParser();
+        final MethodParser<Variables> second = createParser();
+        first.registerMethod("value", constant("first"), 0);
+        second.registerMethod("value", constant("second"), 0);
+        final Compiled compiled = MethodParser.compile("value()");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("first", first.execute(compiled, VARIABLES));
+            assertEquals("second", second.execute(compiled, VARIABLES));
+        }
+    }
+
+    public void testCompileCache() {
+        final MethodParser<Variables> parser = createParser();
+        assertSame(parser.getCompiled("foo bar"), parser.getCompiled("foo bar"));
+        parser.getCompileCache().setMaximumSize(0);
+        assertNotSame(parser.getCompiled("foo bar"), parser.getCompiled("foo bar"));
+    }
+
+    public void testDynamicCache() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        final Compiled compiled = MethodParser.compile("call(Hello,add(1,2))");
+        final String expected = parser.execute(compiled, VARIABLES);
+        assertEquals(1, parser.getDynamicCache().size());
+        assertEquals(1, parser.getDynamicCache().getMissCount());
+        assertEquals(expected, parser.execute(compiled, VARIABLES));
+        assertEquals(1, parser.getDynamicCache().getHitCount());
+        parser.getDynamicCache().setMaximumSize(0);
+        assertEquals(expected, parser.execute(compiled, VARIABLES));
+        assertEquals(0, parser.getDynamicCache().size());
+    }
+
+    public void testPreValues() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        parser.loadEssential();
+        assertEquals("yes", parser.execute(MethodParser.compile("ifgreater(2,1,yes,no)"), VARIABLES));
+        // Values which can't be compared have no result
+        assertEquals("ifgreater(a,1,yes,no", parser.execute(MethodParser.compile("ifgreater(a,1,yes,no)"), VARIABLES));
+        assertEquals("5", parser.execute(MethodParser.compile("create(long,5)"), VARIABLES));
+        assertEquals("{ \"a\" , \"b\" }", parser.execute(MethodParser.compile("create(array,a,b)"), VARIABLES));
+    }
+
+    private static void assertExceeded(final MethodParser<Variables> parser, final String line, final ExecutionBudget budget, final BudgetExceededException.Limit limit) {
+        try {
+            parser.execute(MethodParser.compile(line), VARIABLES, budget);
+            fail("Expected the " + limit + " to be exceeded");
+        } catch (BudgetExceededException e) {
+            assertEquals(limit, e.getLimit());
+        }
+    }
+
+    public void testExecutionBudget() throws BudgetExceededException {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        AliasMethod.create("loop($0;)", 1, "loop", parser).register();
+        parser.registerMethod("slow", new Method<Variables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new StringParameterType("slow");
+            }
+        }, 0);
+
+        // The default budget stops the recursion and the legacy call returns an empty text
+        assertEquals("", parser.execute(MethodParser.compile("loop(a)"), VARIABLES));
+        assertEquals("", parser.execute("loop(a)", VARIABLES));
+        assertEquals("", parser.link(MethodParser.compile("loop(a)")).execute(VARIABLES));
+        assertExceeded(parser, "loop(a)", ExecutionBudget.DEFAULT, BudgetExceededException.Limit.DEPTH);
+        assertExceeded(parser, "add(1,2) add(1,2) add(1,2)", ExecutionBudget.UNLIMITED.withMaximumCalls(2), BudgetExceededException.Limit.CALLS);
+        assertExceeded(parser, "Hello world", ExecutionBudget.UNLIMITED.withMaximumOutput(6), BudgetExceededException.Limit.OUTPUT);
+        assertExceeded(parser, "slow() text", ExecutionBudget.UNLIMITED.withTimeout(1, TimeUnit.MILLISECONDS), BudgetExceededException.Limit.TIME);
+
+        final ExecutionBudget budget = ExecutionBudget.DEFAULT.withMaximumCalls(3).withMaximumOutput(10);
+        assertEquals("Hello3", parser.execute(MethodParser.compile("Hello add(1,2)"), VARIABLES, budget));
+        parser.setDefaultBudget(budget);
+        assertEquals("", parser.execute(MethodParser.compile("add(1,2) add(1,2) add(1,2) add(1,2)"), VARIABLES));
+
+        // Each execution of reused runtime options gets the complete budget
+        final RuntimeOptions<Variables> runtime = new RuntimeOptions<Variables>(VARIABLES, parser, parser.getLogger(), budget);
+        final Compiled compiled = MethodParser.compile("add(1,2) add(1,2)");
+        final LinkedTemplate<Variables> linked = parser.link(compiled);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("33", compiled.executeWithinBudget(runtime));
+            assertEquals("33", linked.executeWithinBudget(runtime));
+        }
+        assertEquals(2, runtime.getCallCount());
+    }
+
+    public void testExecuteTo() throws IOException, BudgetExceededException {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        for (String line : new String[] { "", "text", "Hello sp() world add(1,2) unknown(a)", "\"quoted text\" array(a,b)" }) {
+            final Compiled compiled = parser.getCompiled(line);
+            final StringBuilder builder = new StringBuilder("prefix");
+            parser.execute(compiled, VARIABLES, builder);
+            final StringWriter writer = new StringWriter();
+            parser.execute(compiled, VARIABLES, writer);
+            final String expected = parser.execute(compiled, VARIABLES);
+            assertEquals(line, "prefix" + expected, builder.toString());
+            assertEquals(line, expected, writer.toString());
+        }
+    }
+
+    public void testExecuteToPropagatesFailure() throws BudgetExceededException {
+        final MethodParser<Variables> parser = createParser();
+        final Appendable failing = new Appendable() {
+            @Override
+            public Appendable append(final CharSequence csq, final int start, final int end) throws IOException {
+                throw new IOException("closed");
+            }
+
+            @Override
+            public Appendable append(final char c) throws IOException {
+                throw new IOException("closed");
+            }
+
+            @Override
+            public Appendable append(final CharSequence csq) throws IOException {
+                throw new IOException("closed");
+            }
+        };
+        try {
+            parser.execute(parser.getCompiled("text"), VARIABLES, failing);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals("closed", e.getMessage());
+        }
+    }
+
+    public void testVariableScopes() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        assertEquals("abcabc", parser.execute("returnvar(x,abc) returnvar(x)", VARIABLES));
+        assertEquals("false", parser.execute("isvarset(x)", VARIABLES));
+        assertEquals("1true", parser.execute("returnpvar(p,1) isvarpersistent(p)", VARIABLES));
+        assertEquals("1", parser.execute("returnvar(p)", VARIABLES));
+        assertEquals("2false", parser.execute("returnvar(p,2) isvarpersistent(p)", VARIABLES));
+        assertEquals("1", parser.getVariable("p").asString());
+        parser.unsetVariable("p");
+        assertEquals("false", parser.execute("isvarset(p)", VARIABLES));
+    }
+
+    public void testNestedExecutionKeepsVariables() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        parser.registerMethod("nested", new Method<Variables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+                return new StringParameterType(MethodParser.compile("returnvar(y,b)").execute(runtime));
+            }
+        }, 0);
+        assertEquals("abab", parser.execute("returnvar(x,a) nested() returnvar(x) returnvar(y)", VARIABLES));
+        assertEquals("false", parser.execute("isvarset(x)", VARIABLES));
+    }
+
+    public void testDecimalLiteralsUseDefaultFormat() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        final Compiled compiled = MethodParser.compile("round(1.456) 2.5");
+        final Compiled optimized = parser.optimize(compiled);
+        final LinkedTemplate<Variables> linked = parser.link(compiled);
+        assertEquals("12.5", parser.execute(compiled, VARIABLES));
+        parser.setDefaultFormat(new DecimalFormat("0.000"));
+        assertEquals("1.0002.5", parser.execute(compiled, VARIABLES));
+        assertEquals("1.0002.5", parser.execute(optimized, VARIABLES));
+        assertEquals("1.0002.5", linked.execute(VARIABLES));
+        assertEquals("1.0002.5", parser.execute("round(1.456) 2.5", VARIABLES));
+
+        // Parsers with different formats share the literal
+        final MethodParser<Variables> other = createParser();
+        other.loadDefaults();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("1.0002.5", parser.execute(compiled, VARIABLES));
+            assertEquals("12.5", other.execute(compiled, VARIABLES));
+        }
+        final Parameter literal = MethodParser.compile("2.5").getEntries()[0];
+        assertSame(literal.getValue(new RuntimeOptions<Variables>(VARIABLES, parser, null)), literal.getValue(new RuntimeOptions<Variables>(VARIABLES, other, null)));
+    }
+
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedVariableMethods() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        parser.setVariable("t", new StringParameterType("1"), false);
+        assertFalse(parser.isPersistent("t"));
+        assertEquals("1false", parser.execute("returnvar(t) isvarpersistent(t)", VARIABLES));
+        assertEquals("false", parser.execute("isvarset(t)", VARIABLES));
+        parser.setVariable("p", new StringParameterType("2"), true);
+        assertTrue(parser.isPersistent("p"));
+        assertEquals("2true", parser.execute("returnvar(p) isvarpersistent(p)", VARIABLES));
+        parser.setPersistency("p", false);
+        assertFalse(parser.isVariableSet("p"));
+        assertEquals("2false", parser.execute("returnvar(p) isvarpersistent(p)", VARIABLES));
+        assertEquals("false", parser.execute("isvarset(p)", VARIABLES));
+        parser.setVariable("p", new StringParameterType("3"), false);
+        parser.setPersistency("p", true);
+        assertEquals("3true", parser.execute("returnvar(p) isvarpersistent(p)", VARIABLES));
+        assertNotNull(parser.removeVariable("p"));
+    }
+
+    public void testManyExecutionsWithManyPersistentVariables() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        for (int i = 0; i < 10000; i++) {
+            parser.setVariable("p" + i, new StringParameterType(Integer.toString(i)));
+        }
+        final Compiled compiled = parser.optimize(MethodParser.compile("returnvar(t,returnpvar(p42)) returnvar(t)"));
+        final RuntimeOptions<Variables> runtime = new RuntimeOptions<Variables>(VARIABLES, parser, parser.getLogger());
+        for (int i = 0; i < 1000000; i++) {
+            assertEquals("4242", compiled.execute(runtime));
+            assertFalse(runtime.isVariableSet("t"));
+        }
+        assertEquals("9999", parser.getVariable("p9999").asString());
+    }
+
+    public void testConcurrentExecution() throws Exception {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        parser.setVariable("shared", new StringParameterType("s"));
+        final int threads = 8;
+        final int iterations = 2000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < threads; i++) {
+                final String id = "t" + i;
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        start.await();
+                        for (int j = 0; j < iterations; j++) {
+                            final String value = id + "_" + j;
+                            final String result = parser.execute("returnvar(x," + value + ") returnvar(shared) returnvar(x) isvarset(y) returnvar(y,z)", VARIABLES);
+                            if (!result.equals(value + "s" + value + "falsez")) {
+                                return result;
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertNull(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertFalse(parser.isVariableSet("x"));
+        assertEquals("s", parser.getVariable("shared").asString());
+    }
+
+    private static final class PlayerVariables implements Variables {
+        public final String name;
+
+        public PlayerVariables(final String name) {
+            this.name = name;
+        }
+    }
+
+    public void testExecuteAll() throws InterruptedException {
+        final MethodParser<PlayerVariables> parser = new MethodParser<PlayerVariables>(Logger.getLogger("jimp-test"), "");
+        parser.loadDefaults();
+        parser.registerMethod("name", new Method<PlayerVariables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends PlayerVariables> runtime) {
+                return new StringParameterType(runtime.variables.name);
+            }
+        }, 0);
+        final List<PlayerVariables> players = new ArrayList<PlayerVariables>();
+        for (int i = 0; i < 1000; i++) {
+            players.add(new PlayerVariables("player" + i));
+        }
+        final Compiled compiled = MethodParser.compile("Hello name() ifequals(a,a,yes,no) returnvar(x,name()) returnvar(x)");
+        final List<String> expected = new ArrayList<String>();
+        for (PlayerVariables player : players) {
+            expected.add(parser.execute(compiled, player));
+        }
+        assertEquals("Helloplayer0yesplayer0player0", expected.get(0));
+        assertEquals(expected, parser.executeAll(compiled, players));
+        assertEquals(expected, parser.executeAll(compiled, players, null));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(expected, parser.executeAll(compiled, players, executor));
+            // The variables must only be read sequentially
+            final List<PlayerVariables> sequential = new LinkedList<PlayerVariables>(players) {
+                @Override
+                public PlayerVariables get(final int index) {
+                    throw new UnsupportedOperationException("Read by index");
+                }
+            };
+            assertEquals(expected, parser.executeAll(compiled, sequential, executor));
+            assertEquals(expected.subList(0, 1), parser.executeAll(compiled, players.subList(0, 1), executor));
+            assertTrue(parser.executeAll(compiled, new ArrayList<PlayerVariables>(), executor).isEmpty());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testAliasTemplates() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        final String[][] aliases = {
+            // name, line, call, arguments
+            { "greet", "Hello $0;", "greet(World)", "World" },
+            { "twice", "add($0;,$0;)", "twice(21)", "21" },
+            { "same", "ifequals($0;,$1;,yes,no)", "same(a,a)", "a", "a" },
+            { "wrap", "missing($0;) $1;", "wrap(x,y)", "x", "y" },
+            { "outer", "twice(add($0;,1))", "outer(4)", "4" },
+            { "quoted", "print(\"$0;\")", "quoted(text)", "text" },
+            { "text", "print($0;,missing($1;))", "text(a,b)", "a", "b" },
+        };
+        for (String[] alias : aliases) {
+            AliasMethod.create(alias[1], alias.length - 3, alias[0], parser).register();
+        }
+        for (String[] alias : aliases) {
+            String inserted = alias[1];
+            for (int i = 3; i < alias.length; i++) {
+                inserted = inserted.replace("$" + (i - 3) + ";", alias[i]);
+            }
+            final String expected = parser.execute(MethodParser.compile(inserted), VARIABLES);
+            assertEquals(alias[0], expected, parser.execute(MethodParser.compile(alias[2]), VARIABLES));
+        }
+        // Values which aren't a single literal are inserted
+        AliasMethod.create("call($0;)", 1, "single", parser).register();
+        assertEquals(parser.execute(MethodParser.compile("call(a,b)"), VARIABLES), parser.execute(MethodParser.compile("single(\"a,b\")"), VARIABLES));
+    }
+
+    public void testAliasArgumentsAreTypedLikeInserted() {
+        final MethodParser<Variables> parser = createParser();
+        parser.loadDefaults();
+        AliasMethod.create("add($0;,1)", 1, "inc", parser).register();
+        AliasMethod.create("max($0;,3)", 1, "top", parser).register();
+        AliasMethod.create("ifgreater($0;,10,big,small)", 1, "big", parser).register();
+        AliasMethod.create("count($0;)", 1, "cnt", parser).register();
+        final String[][] calls = {
+            // call, result
+            { "inc(5)", "6" },
+            { "inc(\"5\")", "6" },
+            { "inc(print(5))", "6" },
+            { "inc(\"1,2\")", "4" },
+            { "top(add(2,3))", "5" },
+            { "top(\"7\")", "7" },
+            { "big(\"5\")", "small" },
+            { "big(add(10,5))", "big" },
+            { "cnt(\"5\")", "1" },
+            { "cnt(text)", "0" },
+        };
+        for (String[] call : calls) {
+            assertEquals(call[0], call[1], parser.execute(MethodParser.compile(call[0]), VARIABLES));
+        }
+    }
+}
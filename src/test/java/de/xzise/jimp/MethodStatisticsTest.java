@@ -0,0 +1,81 @@
+package de.xzise.jimp;
+
+import java.util.List;
+
+import de.xzise.jimp.MethodParser.Compiled;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+public class MethodStatisticsTest extends ParserTestCase {
+
+    private MethodStatistics statistics;
+
+    @Override
+    protected void setUp() {
+        super.setUp();
+        this.parser.registerMethod("fail", new Method<Variables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+                return null;
+            }
+        }, 0);
+        this.statistics = new MethodStatistics(4);
+        this.parser.setMonitor(this.statistics);
+    }
+
+    public void testCounts() {
+        final Compiled compiled = MethodParser.compile("add(1,add(2,3)) max(3,9) fail() unknown(a)");
+        this.parser.execute(compiled, VARIABLES);
+        this.parser.link(compiled).execute(VARIABLES);
+
+        final MethodStatistics.Snapshot add = this.statistics.getStatistics("add");
+        assertEquals(4, add.count);
+        assertEquals(0, add.failedCount);
+        assertTrue(add.maximumNanos <= add.totalNanos);
+        assertEquals(2, this.statistics.getStatistics("max").count);
+        assertEquals(2, this.statistics.getStatistics("fail").failedCount);
+        assertNull(this.statistics.getStatistics("unknown"));
+
+        final List<MethodStatistics.Snapshot> all = this.statistics.getStatistics();
+        assertEquals(3, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).totalNanos >= all.get(i).totalNanos);
+        }
+
+        this.statistics.reset();
+        assertNull(this.statistics.getStatistics("add"));
+        assertTrue(this.statistics.getStatistics().isEmpty());
+    }
+
+    public void testConcurrentCounts() throws InterruptedException {
+        final Compiled compiled = MethodParser.compile("add(1,2)");
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        MethodStatisticsTest.this.parser.execute(compiled, VARIABLES);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8000, this.statistics.getStatistics("add").count);
+    }
+
+    public void testNoMonitor() {
+        this.parser.setMonitor(MethodMonitor.NOOP);
+        this.parser.execute(MethodParser.compile("add(1,2)"), VARIABLES);
+        assertNull(this.statistics.getStatistics("add"));
+        try {
+            new MethodStatistics(3);
+            fail("The number of stripes isn't a power of two.");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.xzise.jimp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import de.xzise.jimp.variables.Variables;
+
+public class MethodTableTest extends ParserTestCase {
+
+    /** The lookup of the previous registry. */
+    private static Method<? super Variables> legacyGet(final Map<Integer, Method<? super Variables>> methods, int paramCount) {
+        if (methods.containsKey(paramCount)) {
+            return methods.get(paramCount);
+        } else {
+            Method<? super Variables> method = null;
+            paramCount = -Math.abs(paramCount);
+            while (paramCount < 0 && method == null) {
+                method = methods.get(paramCount);
+                paramCount++;
+            }
+            return method;
+        }
+    }
+
+    public void testSameAsLegacyLookup() {
+        final Random random = new Random(1234);
+        for (int run = 0; run < 500; run++) {
+            final Map<Integer, Method<? super Variables>> legacy = new HashMap<Integer, Method<? super Variables>>();
+            MethodTable<Variables> table = new MethodTable<Variables>();
+            for (int i = random.nextInt(8); i >= 0; i--) {
+                final int paramCount = random.nextInt(13) - 6;
+                if (random.nextInt(4) == 0) {
+                    legacy.remove(paramCount);
+                    table = table.with(paramCount, null);
+                } else {
+                    final Method<Variables> method = constant(run + ":" + i);
+                    legacy.put(paramCount, method);
+                    table = table.with(paramCount, method);
+                }
+            }
+            assertEquals(legacy.isEmpty(), table.isEmpty());
+            assertEquals(legacy.size(), table.getParamCounts().size());
+            for (int paramCount = -10; paramCount <= 10; paramCount++) {
+                assertSame(run + ": " + paramCount, legacyGet(legacy, paramCount), table.get(paramCount));
+                assertSame(legacy.get(paramCount), table.getRegistered(paramCount));
+            }
+        }
+    }
+
+    public void testRedirectedWithoutParamCounts() {
+        final MethodParser<Variables> parser = createParser();
+        parser.registerMethod("original", constant("none"), 0);
+        parser.registerMethod("original", constant("many"), -2);
+        parser.createRedirected("redirect", "original");
+        assertEquals("none", parser.execute("redirect()", VARIABLES));
+        assertEquals("many", parser.execute("redirect(a,b,c)", VARIABLES));
+        assertNull(parser.getMethod("redirect", 1));
+        parser.createRedirected("missing", "unknown");
+        assertNull(parser.getMethod("missing", 0));
+        parser.clear();
+        assertNull(parser.getMethod("redirect", 0));
+    }
+}
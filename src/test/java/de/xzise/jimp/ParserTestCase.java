@@ -0,0 +1,52 @@
+package de.xzise.jimp;
+
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.parameter.types.StringParameterType;
+import de.xzise.jimp.variables.Variables;
+
+/**
+ * Base of the tests which execute lines. Each test gets a new parser with the
+ * default methods.
+ */
+public abstract class ParserTestCase extends TestCase {
+
+    public static final Variables VARIABLES = new Variables() {
+    };
+
+    protected MethodParser<Variables> parser;
+
+    /**
+     * Creates a parser without any methods.
+     * 
+     * @return the new parser.
+     */
+    public static MethodParser<Variables> createParser() {
+        return new MethodParser<Variables>(Logger.getLogger("jimp-test"), "");
+    }
+
+    /**
+     * Creates a method which always returns the same value.
+     * 
+     * @param value
+     *            the returned value.
+     * @return the new method.
+     */
+    public static Method<Variables> constant(final String value) {
+        return new Method<Variables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+                return new StringParameterType(value);
+            }
+        };
+    }
+
+    @Override
+    protected void setUp() {
+        this.parser = createParser();
+        this.parser.loadDefaults();
+    }
+}
@@ -0,0 +1,310 @@
+package de.xzise.jimp.methods;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import junit.framework.TestCase;
+import de.xzise.jimp.BudgetExceededException;
+import de.xzise.jimp.ExecutionBudget;
+import de.xzise.jimp.Method;
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.ParserTestCase;
+import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.NativeParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.variables.Variables;
+
+public class ScriptMethodTest extends TestCase {
+
+    /** Engine which fails if it is used by two threads at the same time. */
+    private static final class TestEngine extends AbstractScriptEngine implements Invocable {
+
+        private final TestFactory factory;
+        private final AtomicBoolean used = new AtomicBoolean();
+
+        public TestEngine(final TestFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public Object eval(final String script, final ScriptContext context) throws ScriptException {
+            this.factory.evaluated.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public Object eval(final Reader reader, final ScriptContext context) throws ScriptException {
+            return this.eval("", context);
+        }
+
+        @Override
+        public Object invokeFunction(final String name, final Object... args) throws ScriptException, NoSuchMethodException {
+            final Parameter[] parameters = (Parameter[]) args[0];
+            final RuntimeOptions<?> runtime = (RuntimeOptions<?>) args[1];
+            long sum = parameters.length;
+            if (runtime != null) {
+                // Evaluates the parameters like a script, which could call the method again
+                try {
+                    for (Parameter parameter : parameters) {
+                        final Long value = NativeParameterType.asLong(parameter.getValue(runtime));
+                        sum += value == null ? 0 : value;
+                    }
+                } catch (RuntimeException e) {
+                    // Script engines wrap the exceptions of the called code
+                    throw new ScriptException(e);
+                }
+            }
+            if (!this.factory.threadSafe && !this.used.compareAndSet(false, true)) {
+                this.factory.concurrentCalls.incrementAndGet();
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.used.set(false);
+            return Long.valueOf(sum);
+        }
+
+        @Override
+        public Object invokeMethod(final Object thiz, final String name, final Object... args) throws ScriptException, NoSuchMethodException {
+            throw new NoSuchMethodException(name);
+        }
+
+        @Override
+        public <T> T getInterface(final Class<T> clasz) {
+            return null;
+        }
+
+        @Override
+        public <T> T getInterface(final Object thiz, final Class<T> clasz) {
+            return null;
+        }
+
+        @Override
+        public Bindings createBindings() {
+            return new SimpleBindings();
+        }
+
+        @Override
+        public ScriptEngineFactory getFactory() {
+            return this.factory;
+        }
+    }
+
+    private static final class TestFactory implements ScriptEngineFactory {
+
+        private final boolean threadSafe;
+        public final AtomicInteger evaluated = new AtomicInteger();
+        public final AtomicInteger concurrentCalls = new AtomicInteger();
+
+        public TestFactory(final boolean threadSafe) {
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        public String getEngineName() {
+            return "test";
+        }
+
+        @Override
+        public String getEngineVersion() {
+            return "1";
+        }
+
+        @Override
+        public List<String> getExtensions() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> getMimeTypes() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> getNames() {
+            return Collections.singletonList("test");
+        }
+
+        @Override
+        public String getLanguageName() {
+            return "test";
+        }
+
+        @Override
+        public String getLanguageVersion() {
+            return "1";
+        }
+
+        @Override
+        public Object getParameter(final String key) {
+            return "THREADING".equals(key) && this.threadSafe ? "MULTITHREADED" : null;
+        }
+
+        @Override
+        public String getMethodCallSyntax(final String obj, final String m, final String... args) {
+            return null;
+        }
+
+        @Override
+        public String getOutputStatement(final String toDisplay) {
+            return null;
+        }
+
+        @Override
+        public String getProgram(final String... statements) {
+            return null;
+        }
+
+        @Override
+        public ScriptEngine getScriptEngine() {
+            return new TestEngine(this);
+        }
+    }
+
+    private static ScriptMethod create(final TestFactory factory, final int maximumEngines) {
+        final ScriptEngineManager manager = new ScriptEngineManager();
+        manager.registerEngineName("test", factory);
+        return ScriptMethod.create("test", "count", new StringReader("script"), manager, maximumEngines, Logger.getLogger("jimp-test"));
+    }
+
+    private static void callConcurrently(final ScriptMethod method) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<Long>> tasks = Collections.nCopies(200, (Callable<Long>) new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return NativeParameterType.asLong(method.call(new Parameter[2], null));
+                }
+            });
+            for (Future<Long> result : executor.invokeAll(tasks)) {
+                assertEquals(Long.valueOf(2), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testPooledEngines() throws Exception {
+        final TestFactory factory = new TestFactory(false);
+        final ScriptMethod method = create(factory, 3);
+        callConcurrently(method);
+        assertEquals(0, factory.concurrentCalls.get());
+        assertTrue(method.getEngineCount() <= 3);
+        assertEquals(method.getEngineCount(), factory.evaluated.get());
+        assertEquals(200, method.getCallCount());
+        assertTrue(method.getMaximumTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(method.getAverageTime(TimeUnit.NANOSECONDS) <= method.getMaximumTime(TimeUnit.NANOSECONDS));
+    }
+
+    public void testSharedEngine() throws Exception {
+        final TestFactory factory = new TestFactory(true);
+        final ScriptMethod method = create(factory, 3);
+        callConcurrently(method);
+        assertEquals(1, method.getEngineCount());
+        assertEquals(1, factory.evaluated.get());
+        method.resetStatistics();
+        assertEquals(0, method.getCallCount());
+    }
+
+    public void testNestedCalls() throws Exception {
+        final TestFactory factory = new TestFactory(false);
+        final ScriptMethod method = create(factory, 1);
+        final MethodParser<Variables> parser = ParserTestCase.createParser();
+        parser.registerMethod("s", method, -1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> result = executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return parser.execute(MethodParser.compile("s(s(s(a)))"), ParserTestCase.VARIABLES);
+                }
+            });
+            // Each call counts its parameter and adds the values of the nested calls
+            assertEquals("3", result.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, method.getEngineCount());
+        assertEquals(0, factory.concurrentCalls.get());
+        assertEquals(3, method.getCallCount());
+    }
+
+    public void testCrossedNestedCalls() throws Exception {
+        final ScriptMethod first = create(new TestFactory(false), 1);
+        final ScriptMethod second = create(new TestFactory(false), 1);
+        final MethodParser<Variables> parser = ParserTestCase.createParser();
+        parser.registerMethod("a", first, -1);
+        parser.registerMethod("b", second, -1);
+        // Both threads hold the engine of the outer method before they call the other method
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        parser.registerMethod("sync", new Method<Variables>() {
+            @Override
+            public ParameterType call(final Parameter[] parameters, final RuntimeOptions<? extends Variables> runtime) {
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return parameters[0].getValue(runtime);
+            }
+        }, 1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String> ab = executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return parser.execute(MethodParser.compile("a(sync(b(x)))"), ParserTestCase.VARIABLES);
+                }
+            });
+            final Future<String> ba = executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return parser.execute(MethodParser.compile("b(sync(a(x)))"), ParserTestCase.VARIABLES);
+                }
+            });
+            assertEquals("2", ab.get(10, TimeUnit.SECONDS));
+            assertEquals("2", ba.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, first.getEngineCount());
+        assertEquals(1, second.getEngineCount());
+        assertEquals(2, first.getCallCount());
+    }
+
+    public void testBudgetExceededInScript() {
+        final ScriptMethod method = create(new TestFactory(true), 1);
+        final MethodParser<Variables> parser = ParserTestCase.createParser();
+        parser.registerMethod("s", method, -1);
+        try {
+            parser.execute(MethodParser.compile("s(s(s(a)))"), ParserTestCase.VARIABLES, ExecutionBudget.UNLIMITED.withMaximumDepth(2));
+            fail("The depth is exceeded.");
+        } catch (BudgetExceededException e) {
+            assertEquals(BudgetExceededException.Limit.DEPTH, e.getLimit());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package de.xzise.jimp.parameter;
+
+import junit.framework.TestCase;
+import de.xzise.jimp.parameter.types.DoubleParameter;
+import de.xzise.jimp.parameter.types.LongParameter;
+import de.xzise.jimp.parameter.types.NativeParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
+
+public class ParameterTest extends TestCase {
+
+    private static ParameterType literal(final String text, final boolean quoted) {
+        return new Parameter(text, text, quoted).getValue(null);
+    }
+
+    public void testIntegerLiterals() {
+        for (String text : new String[] { "0", "42", "-7", " 2", "007", "9223372036854775807" }) {
+            final ParameterType type = literal(text, false);
+            assertTrue(text, type instanceof LongParameter);
+            assertEquals(text, Long.parseLong(text.trim()), NativeParameterType.asLong(type).longValue());
+            assertEquals(text, text, type.asString());
+        }
+    }
+
+    public void testDecimalLiterals() {
+        for (String text : new String[] { "1.5", "-0.25", " 3.10" }) {
+            final ParameterType type = literal(text, false);
+            assertFalse(text, type instanceof LongParameter);
+            assertEquals(text, Double.parseDouble(text.trim()), NativeParameterType.asDouble(type).doubleValue());
+            assertEquals(text, text, type.asString());
+        }
+    }
+
+    public void testStringLiterals() {
+        for (String text : new String[] { "", " ", "-", "1.", ".5", "1.2.3", "1e5", "0x10", "--1", "1-", "abc", "92233720368547758070", "NaN" }) {
+            final ParameterType type = literal(text, false);
+            assertFalse(text, type instanceof DoubleParameter);
+            assertEquals(text, text, type.asString());
+        }
+        assertFalse(literal("12", true) instanceof DoubleParameter);
+    }
+
+    public void testLiteralIsShared() {
+        final Parameter parameter = new Parameter("12", "12", false);
+        assertSame(parameter.getValue(null), parameter.getValue(null));
+    }
+
+    public void testSlice() {
+        final Parameter[] parameters = { new Parameter("a", "a", false), new Parameter("b", "b", false), new Parameter("c", "c", false) };
+        final ParameterSlice slice = new ParameterSlice(parameters, 1, 2);
+        assertEquals(2, slice.size());
+        assertSame(parameters[1], slice.get(0));
+        assertSame(parameters[2], slice.slice(1).get(0));
+        assertEquals(0, slice.slice(2).size());
+        try {
+            slice.get(2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+        }
+        try {
+            new ParameterSlice(parameters, 2, 2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+        }
+        final Parameter[] copy = slice.toArray();
+        assertEquals(2, copy.length);
+        assertSame(parameters[2], copy[1]);
+    }
+}
@@ -0,0 +1,80 @@
+package de.xzise.jimp.parameter.types;
+
+import junit.framework.TestCase;
+import de.xzise.MinecraftUtil;
+
+public class NativeParameterTypeTest extends TestCase {
+
+    /** A double parameter which doesn't implement the primitive interface. */
+    private static final class BoxedDouble extends NativeParameterType implements DoubleParameter {
+
+        private final Double value;
+
+        public BoxedDouble(final Double value) {
+            this.value = value;
+        }
+
+        @Override
+        public Double asDouble() {
+            return this.value;
+        }
+
+        @Override
+        public String asString() {
+            return String.valueOf(this.value);
+        }
+    }
+
+    public void testPrimitiveValues() {
+        final ParameterType l = new LongParameterType(42);
+        assertTrue(NativeParameterType.hasLongValue(l));
+        assertEquals(42, NativeParameterType.asLongValue(l, -1));
+        assertTrue(NativeParameterType.hasDoubleValue(l));
+        assertEquals(42.0, NativeParameterType.asDoubleValue(l, -1));
+
+        final ParameterType d = new DoubleParameterType(1.5, MinecraftUtil.MAX_TWO_DECIMALS_FORMAT);
+        assertFalse(NativeParameterType.hasLongValue(d));
+        assertEquals(-1, NativeParameterType.asLongValue(d, -1));
+        assertEquals(1.5, NativeParameterType.asDoubleValue(d, -1));
+    }
+
+    public void testMissingValues() {
+        for (ParameterType type : new ParameterType[] { NativeParameterType.NULL_PARAMETER_TYPE, new StringParameterType("1"), new ArrayParameterType(new ParameterType[0]), new BoxedDouble(null), null }) {
+            assertFalse(NativeParameterType.hasLongValue(type));
+            assertFalse(NativeParameterType.hasDoubleValue(type));
+            assertEquals(7, NativeParameterType.asLongValue(type, 7));
+            assertEquals(7.0, NativeParameterType.asDoubleValue(type, 7));
+        }
+    }
+
+    public void testDelegatedValues() {
+        final ParameterType array = new ArrayParameterType(new ParameterType[] { new LongParameterType(3) });
+        assertTrue(NativeParameterType.hasLongValue(array));
+        assertEquals(3, NativeParameterType.asLongValue(array, 0));
+        final ParameterType boxed = new BoxedDouble(2.5);
+        assertTrue(NativeParameterType.hasDoubleValue(boxed));
+        assertEquals(2.5, NativeParameterType.asDoubleValue(boxed, 0));
+    }
+
+    public void testIndexedAccess() {
+        final ParameterType scalar = new StringParameterType("a");
+        assertEquals(1, scalar.size());
+        assertSame(scalar, scalar.get(0));
+        try {
+            scalar.get(1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+        }
+
+        final ParameterType[] elements = { new StringParameterType("b"), new LongParameterType(2) };
+        final ParameterType array = new ArrayParameterType(elements);
+        assertEquals(2, array.size());
+        assertSame(elements[1], array.get(1));
+        int count = 0;
+        for (ParameterType element : array) {
+            assertSame(elements[count++], element);
+        }
+        assertEquals(2, count);
+        assertNotSame(elements, array.getArray());
+    }
+}
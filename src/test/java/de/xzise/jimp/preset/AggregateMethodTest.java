@@ -0,0 +1,34 @@
+package de.xzise.jimp.preset;
+
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.ParserTestCase;
+
+public class AggregateMethodTest extends ParserTestCase {
+
+    private String execute(final String line) {
+        return this.parser.execute(MethodParser.compile(line), VARIABLES);
+    }
+
+    public void testSum() {
+        assertEquals("6", this.execute("sum(1,2,3)"));
+        assertEquals("10", this.execute("sum(array(1,2),array(3,array(4)),text)"));
+        assertEquals("6.5", this.execute("sum(array(1,2),3.5)"));
+        // Large integers are summed exactly
+        assertEquals("9007199254740993", this.execute("sum(9007199254740992,1)"));
+    }
+
+    public void testAverage() {
+        assertEquals("2.33", this.execute("avg(array(1,2,4))"));
+        assertEquals("avg(text", this.execute("avg(text)"));
+    }
+
+    public void testCount() {
+        assertEquals("3", this.execute("count(a,1,array(2,3))"));
+        assertEquals("0", this.execute("count(a)"));
+    }
+
+    public void testStandardDeviation() {
+        assertEquals("2", this.execute("stddev(2,4,4,4,5,5,7,9)"));
+        assertEquals("0", this.execute("stddev(array(3,3,3))"));
+    }
+}
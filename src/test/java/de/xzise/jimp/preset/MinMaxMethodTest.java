@@ -0,0 +1,89 @@
+package de.xzise.jimp.preset;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import de.xzise.jimp.MethodParser;
+import de.xzise.jimp.ParserTestCase;
+import de.xzise.jimp.RuntimeOptions;
+import de.xzise.jimp.methods.math.MaximumMethod;
+import de.xzise.jimp.methods.math.MinimumMethod;
+import de.xzise.jimp.parameter.Parameter;
+import de.xzise.jimp.parameter.types.ArrayParameterType;
+import de.xzise.jimp.parameter.types.LongParameterType;
+import de.xzise.jimp.parameter.types.NativeParameterType;
+import de.xzise.jimp.parameter.types.ParameterType;
+import de.xzise.jimp.parameter.types.StringParameterType;
+import de.xzise.jimp.variables.Variables;
+
+public class MinMaxMethodTest extends TestCase {
+
+    private final MethodParser<Variables> parser = ParserTestCase.createParser();
+    private final RuntimeOptions<Variables> runtime = new RuntimeOptions<Variables>(null, this.parser, this.parser.getLogger());
+
+    /** Parameter with a fixed value. */
+    private static final class ValueParameter extends Parameter {
+
+        private final ParameterType value;
+
+        public ValueParameter(final ParameterType value) {
+            super("", "", false);
+            this.value = value;
+        }
+
+        @Override
+        protected <V extends Variables> ParameterType getInnerValue(final RuntimeOptions<V> runtime) {
+            return this.value;
+        }
+    }
+
+    private static Parameter[] createParameters(final long count, final ParameterType... values) {
+        final Parameter[] parameters = new Parameter[values.length + 1];
+        parameters[0] = new ValueParameter(new LongParameterType(count));
+        for (int i = 0; i < values.length; i++) {
+            parameters[i + 1] = new ValueParameter(values[i]);
+        }
+        return parameters;
+    }
+
+    private Long call(final MinMaxMethod method, final long count, final ParameterType... values) {
+        return NativeParameterType.asLong(method.call(createParameters(count, values), this.runtime));
+    }
+
+    public void testSelection() {
+        final Random random = new Random(42);
+        final MaximumMethod max = new MaximumMethod(false);
+        final MinimumMethod min = new MinimumMethod(false);
+        for (int run = 0; run < 200; run++) {
+            final long[] longs = new long[1 + random.nextInt(60)];
+            final ParameterType[] values = new ParameterType[longs.length];
+            for (int i = 0; i < longs.length; i++) {
+                longs[i] = random.nextInt(20) - 10;
+                values[i] = new LongParameterType(longs[i]);
+            }
+            final long[] sorted = longs.clone();
+            Arrays.sort(sorted);
+            final int k = 1 + random.nextInt(longs.length);
+            assertEquals(Long.valueOf(sorted[sorted.length - k]), this.call(max, k, values));
+            assertEquals(Long.valueOf(sorted[k - 1]), this.call(min, k, values));
+        }
+    }
+
+    public void testArrays() {
+        final ParameterType inner = new ArrayParameterType(new ParameterType[] { new LongParameterType(7), new LongParameterType(1) });
+        final ParameterType array = new ArrayParameterType(new ParameterType[] { new LongParameterType(3), inner, new StringParameterType("x") });
+        assertEquals(Long.valueOf(7), this.call(new MaximumMethod(false), 1, array, new LongParameterType(5)));
+        assertEquals(Long.valueOf(3), this.call(new MaximumMethod(false), 3, array, new LongParameterType(5)));
+        assertEquals(Long.valueOf(1), this.call(new MinimumMethod(false), 1, array));
+    }
+
+    public void testInvalidCount() {
+        final MaximumMethod max = new MaximumMethod(false);
+        final ParameterType one = new LongParameterType(1);
+        assertNull(this.call(max, 0, one));
+        assertNull(this.call(max, -1, one));
+        assertNull(this.call(max, 2, one));
+        assertNull(max.call(new Parameter[] { new ValueParameter(new StringParameterType("x")), new ValueParameter(one) }, this.runtime));
+    }
+}
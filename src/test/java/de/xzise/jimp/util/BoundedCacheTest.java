@@ -0,0 +1,31 @@
+package de.xzise.jimp.util;
+
+import junit.framework.TestCase;
+
+public class BoundedCacheTest extends TestCase {
+
+    public void testLeastRecentlyUsedEviction() {
+        final BoundedCache<String, Integer> cache = new BoundedCache<String, Integer>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+        cache.put("c", 3);
+        assertNull(cache.get("b"));
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+        assertEquals(Integer.valueOf(3), cache.get("c"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    public void testDisabled() {
+        final BoundedCache<String, Integer> cache = new BoundedCache<String, Integer>(2);
+        cache.put("a", 1);
+        cache.setMaximumSize(0);
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.size());
+        cache.put("a", 1);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getMissCount());
+    }
+}
@@ -0,0 +1,93 @@
+package de.xzise.jimp.util;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import de.xzise.MinecraftUtil;
+
+/**
+ * Checks that {@link DecimalFormatter} formats like {@link DecimalFormat}.
+ */
+public class DecimalFormatterTest extends TestCase {
+
+    private static final String[] PATTERNS = { "#0", "#0.##", "0.00", "#,##0.###", "000.0", "#0.#####", "'$'#0.00", "#0.0;(#0.0)", "#0.00 'pts'", "#.##", "0.###E0", "#0%" };
+
+    private static void assertSameFormat(final DecimalFormat format, final DecimalFormatter formatter, final Random random) {
+        final String pattern = format.toPattern();
+        final double[] special = { 0.0, -0.0, 0.5, -0.5, 1.5, 2.5, 0.125, 0.135, -0.001, 0.005, 0.015, 1e15, -1e15, 123456789.987654321, 9007199254740993.0, 1e300,
+                Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (double d : special) {
+            assertEquals(pattern + ": " + d, format.format(d), formatter.format(d));
+        }
+        final long[] longs = { 0, 1, -1, 999, 1000, -1000, 1234567, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (long l : longs) {
+            assertEquals(pattern + ": " + l, format.format(l), formatter.format(l));
+            assertEquals(pattern + ": " + l, format.format(Long.valueOf(l)), formatter.format(Long.valueOf(l)));
+        }
+        for (int i = 0; i < 3000; i++) {
+            final double d;
+            switch (i % 4) {
+            case 0:
+                d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 6);
+                break;
+            case 1:
+                // Values exactly between two decimals
+                d = (random.nextInt(200000) - 100000) / 1000.0 + 0.0005 * (random.nextBoolean() ? 1 : -1);
+                break;
+            case 2:
+                d = random.nextInt(2000000) - 1000000;
+                break;
+            default:
+                d = Double.longBitsToDouble(random.nextLong());
+            }
+            assertEquals(pattern + ": " + d, format.format(d), formatter.format(d));
+            final long l = random.nextLong() >> random.nextInt(64);
+            assertEquals(pattern + ": " + l, format.format(l), formatter.format(l));
+        }
+    }
+
+    public void testPatterns() {
+        final Random random = new Random(12);
+        for (String pattern : PATTERNS) {
+            assertSameFormat(new DecimalFormat(pattern, new DecimalFormatSymbols(Locale.ENGLISH)), new DecimalFormatter(new DecimalFormat(pattern, new DecimalFormatSymbols(Locale.ENGLISH))), random);
+        }
+    }
+
+    public void testSymbolsAndRounding() {
+        final Random random = new Random(34);
+        for (Locale locale : new Locale[] { Locale.GERMANY, Locale.FRANCE, new Locale("ar", "EG"), new Locale("hi", "IN") }) {
+            final DecimalFormat format = new DecimalFormat("#,##0.##", new DecimalFormatSymbols(locale));
+            assertSameFormat(format, new DecimalFormatter(format), random);
+        }
+        for (RoundingMode mode : new RoundingMode[] { RoundingMode.HALF_UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR }) {
+            final DecimalFormat format = new DecimalFormat("#0.##", new DecimalFormatSymbols(Locale.ENGLISH));
+            format.setRoundingMode(mode);
+            assertSameFormat(format, new DecimalFormatter(format), random);
+        }
+    }
+
+    public void testDecimals() {
+        final Random random = new Random(56);
+        for (int min = 0; min <= 4; min++) {
+            for (int max = min; max <= 6; max++) {
+                final DecimalFormatter formatter = DecimalFormatter.forDecimals(min, max);
+                assertSame(formatter, DecimalFormatter.forDecimals(min, max));
+                assertSameFormat(MinecraftUtil.getFormatWithMinimumDecimals(min, max), formatter, random);
+            }
+        }
+    }
+
+    public void testCopiesFormat() {
+        final DecimalFormat format = new DecimalFormat("#0.##", new DecimalFormatSymbols(Locale.ENGLISH));
+        final DecimalFormatter formatter = DecimalFormatter.of(format);
+        assertSame(formatter, DecimalFormatter.of((DecimalFormat) format.clone()));
+        format.setMaximumFractionDigits(4);
+        assertEquals("1.23", formatter.format(1.23456));
+        assertNotSame(formatter, DecimalFormatter.of(format));
+        assertSame(DecimalFormatter.forPattern("#0.0"), DecimalFormatter.forPattern("#0.0"));
+    }
+}